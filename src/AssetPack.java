@@ -0,0 +1,324 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * AssetPack class serves the game's resources from one pack file, res.pack, instead of opening each file under res
+ * on its own. The pack is mapped into memory once, and each asset is read straight from the mapping, without being
+ * copied. The pack starts with a header and an index of every asset's name, offset and length, followed by the assets.
+ * Maven builds it in the process-classes phase, straight after the atlas is packed, and ships it next to the jar.
+ * Assets missing from the pack, or every asset if there is no pack, are read from their files under res.
+ */
+public class AssetPack {
+
+    /**
+     * Path of the pack file.
+     */
+    public static final String PACK_PATH = "res.pack";
+
+    /**
+     * First bytes of the pack file.
+     */
+    public static final int MAGIC = 0x53444150;
+
+    /**
+     * Version of the pack format.
+     */
+    public static final int VERSION = 1;
+
+    private static final String RESOURCES = "res";
+    private static final String EXTRACTED_PREFIX = "shadow-dimension";
+    private static final String EXTRACTED_SEPARATOR = "-";
+    private static final int PREFETCH_BUFFER_SIZE = 64 * 1024;
+
+    // console messages
+    private static final String PACKED = "Packed %d assets into %s (%d bytes)";
+
+    // error messages
+    private static final String READ_FAILED = "Asset pack could not be read: %s";
+    private static final String WRITE_FAILED = "Asset pack could not be written: %s";
+    private static final String MISSING_ASSET = "Asset not found: %s";
+
+    private static final HashMap<String, int[]> ENTRIES = new HashMap<>();
+    private static final HashMap<String, String> NAMES = new HashMap<>();
+    private static final MappedByteBuffer BUFFER = map();
+    private static final HashMap<String, String> EXTRACTED = new HashMap<>();
+    private static Path extractedDirectory = null;
+
+    /**
+     * Constructor for AssetPack class. The pack is static, so it is never constructed.
+     */
+    private AssetPack() {
+    }
+
+    /**
+     * Map the pack file into memory and read its index.
+     * @return Mapping of the pack, or null if there is no pack.
+     */
+    private static MappedByteBuffer map() {
+        File file = new File(PACK_PATH);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new RuntimeException(String.format(READ_FAILED, PACK_PATH));
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                String key = new String(name, StandardCharsets.UTF_8);
+                ENTRIES.put(key, new int[] {buffer.getInt(), buffer.getInt()});
+                NAMES.put(key.toLowerCase(), key);
+            }
+            return buffer;
+        } catch (IOException | BufferUnderflowException e) {
+            throw new RuntimeException(String.format(READ_FAILED, PACK_PATH), e);
+        }
+    }
+
+    /**
+     * Turn a path into the name of an asset in the pack: relative to the project directory, with forward slashes.
+     * @param path Path of the asset.
+     * @return Name of the asset.
+     */
+    private static String toName(String path) {
+        return Paths.get(path).normalize().toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Find an asset in the pack, ignoring the case of its name if there is no exact match, since some of the game's
+     * files have upper case extensions.
+     * @param path Path of the asset.
+     * @return Name of the asset in the pack, or null if it is not packed.
+     */
+    public static String find(String path) {
+        String name = toName(path);
+        if (ENTRIES.containsKey(name)) {
+            return name;
+        }
+        return NAMES.get(name.toLowerCase());
+    }
+
+    /**
+     * Check if an asset can be read, from the pack or from its file.
+     * @param path Path of the asset.
+     * @return True if the asset exists, false otherwise.
+     */
+    public static boolean exists(String path) {
+        return find(path) != null || new File(path).isFile();
+    }
+
+    /**
+     * Get the bytes of a packed asset, without copying them out of the mapping.
+     * @param path Path of the asset.
+     * @return Read-only buffer of the asset, or null if it is not packed.
+     */
+    public static ByteBuffer get(String path) {
+        String name = find(path);
+        if (name == null) {
+            return null;
+        }
+        int[] entry = ENTRIES.get(name);
+        ByteBuffer buffer = BUFFER.asReadOnlyBuffer();
+        buffer.position(entry[0]).limit(entry[0] + entry[1]);
+        return buffer.slice();
+    }
+
+    /**
+     * Open an asset for reading, from the pack if it is packed or else from its file.
+     * @param path Path of the asset.
+     * @return Stream of the asset's bytes.
+     * @throws IOException If the asset could not be found or opened.
+     */
+    public static InputStream open(String path) throws IOException {
+        ByteBuffer buffer = get(path);
+        if (buffer != null) {
+            return new BufferInputStream(buffer);
+        }
+        File file = new File(path);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(String.format(MISSING_ASSET, path));
+        }
+        return new FileInputStream(file);
+    }
+
+    /**
+     * Open a text asset, such as a level's csv file, for reading.
+     * @param path Path of the asset.
+     * @return Reader of the asset's text.
+     * @throws IOException If the asset could not be found or opened.
+     */
+    public static Reader openReader(String path) throws IOException {
+        return new InputStreamReader(open(path), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get a file holding an asset, for loaders that can only read files, such as bagel's images and fonts. An asset
+     * that is packed but has no file of its own, e.g. when the game ships with only the pack, is written to a
+     * temporary file the first time.
+     * @param path Path of the asset.
+     * @return Path of a file holding the asset.
+     */
+    public static synchronized String getFile(String path) {
+        if (new File(path).isFile()) {
+            return path;
+        }
+        String name = find(path);
+        if (name == null) {
+            throw new RuntimeException(String.format(MISSING_ASSET, path));
+        }
+        String extracted = EXTRACTED.get(name);
+        if (extracted != null) {
+            return extracted;
+        }
+        try {
+            if (extractedDirectory == null) {
+                extractedDirectory = Files.createTempDirectory(EXTRACTED_PREFIX);
+                extractedDirectory.toFile().deleteOnExit();
+            }
+            // a flat directory, numbered so assets with the same file name in different directories do not clash
+            Path file = extractedDirectory.resolve(EXTRACTED.size() + EXTRACTED_SEPARATOR
+                + Paths.get(name).getFileName());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.write(get(name));
+            }
+            file.toFile().deleteOnExit();
+            extracted = file.toString();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(READ_FAILED, name), e);
+        }
+        EXTRACTED.put(name, extracted);
+        return extracted;
+    }
+
+    /**
+     * Read the file holding an asset ahead of loading it, so the operating system has it in memory by the time a
+     * loader on the render thread opens it. Packed assets without a file of their own are written out here rather
+     * than on the render thread.
+     * @param path Path of the asset.
+     */
+    public static void prefetch(String path) {
+        byte[] buffer = new byte[PREFETCH_BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(getFile(path))) {
+            while (in.read(buffer) >= 0) {
+                // the bytes are only read to bring the file into memory
+            }
+        } catch (IOException | RuntimeException e) {
+            // the loader reports the file if it really is missing or unreadable
+        }
+    }
+
+    /**
+     * Input stream that reads from a buffer.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor for BufferInputStream class.
+         * @param buffer Buffer to read from.
+         */
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Read a byte.
+         */
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * Read bytes into an array.
+         */
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        /**
+         * Get the number of bytes left to read.
+         */
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Find the files under a directory, in order of their paths.
+     * @param directory Directory to search.
+     * @param files List to add the files to.
+     */
+    private static void findFiles(File directory, ArrayList<File> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                findFiles(child, files);
+            } else {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * The entry point for building the pack from the files under res.
+     */
+    public static void main(String[] args) {
+        ArrayList<File> files = new ArrayList<>();
+        findFiles(new File(RESOURCES), files);
+
+        // the index comes first, so the offset of the first asset is known once the names are
+        int indexSize = Integer.BYTES + Short.BYTES + Integer.BYTES;
+        ArrayList<byte[]> names = new ArrayList<>();
+        for (File file : files) {
+            byte[] name = toName(file.getPath()).getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            indexSize += Short.BYTES + name.length + 2 * Integer.BYTES;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(PACK_PATH)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(files.size());
+            long offset = indexSize;
+            for (int i = 0; i < files.size(); i++) {
+                long length = files.get(i).length();
+                if (offset + length > Integer.MAX_VALUE) {
+                    throw new RuntimeException(String.format(WRITE_FAILED, PACK_PATH));
+                }
+                out.writeShort(names.get(i).length);
+                out.write(names.get(i));
+                out.writeInt((int) offset);
+                out.writeInt((int) length);
+                offset += length;
+            }
+            for (File file : files) {
+                Files.copy(file.toPath(), out);
+            }
+            System.out.println(String.format(PACKED, files.size(), PACK_PATH, out.size()));
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, PACK_PATH), e);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * AssetRegistry class is the one place sprites are created, so each image file is decoded and uploaded at most once
+ * however many game objects use it. Sprites are keyed by the file they resolve to, so different paths to the same
+ * file, or paths that only differ in case, share a sprite. Levels acquire the sprites they use when they are prepared
+ * and release them when the game leaves them; a sprite whose count drops to zero drops its image, so texture memory
+ * follows the levels in use rather than every level ever played. Sprites listed in the table written by AtlasPacker
+ * are drawn from the atlas, and reference counts are kept on the texture a sprite is drawn from, so the atlas stays
+ * loaded while any level uses one of its sprites. Fonts are shared the same way by path and size.
+ */
+public class AssetRegistry {
+
+    private static final String FONT_SIZE_SEPARATOR = "@";
+
+    private static final ConcurrentHashMap<String, Sprite> BY_PATH = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Sprite> BY_FILE = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, FontAsset> FONTS = new ConcurrentHashMap<>();
+    private static final IdentityHashMap<Sprite, Integer> REFERENCES = new IdentityHashMap<>();
+    private static final Map<String, double[]> REGIONS = readRegions();
+    private static final ConcurrentLinkedQueue<Sprite> PENDING = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong LOADS = new AtomicLong();
+    private static final AtomicLong LOAD_NANOS = new AtomicLong();
+
+    /**
+     * Constructor for AssetRegistry class. The registry is static, so it is never constructed.
+     */
+    private AssetRegistry() {
+    }
+
+    /**
+     * Get the sprite for an image file, creating it the first time the file is used. This does not load the image
+     * or change its reference count.
+     * @param path Path of the image file.
+     * @return Sprite of the image.
+     */
+    public static Sprite getSprite(String path) {
+        Sprite sprite = BY_PATH.get(path);
+        if (sprite == null) {
+            String file = getKey(path);
+            double[] region = REGIONS.get(file);
+            Sprite atlas = region == null ? null : getSprite(AtlasPacker.ATLAS_IMAGE);
+            sprite = BY_FILE.computeIfAbsent(file, key -> createSprite(path, atlas, region));
+            BY_PATH.putIfAbsent(path, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Get the font for a font file and size, creating it the first time they are used. This does not load the font.
+     * @param path Path of the font file.
+     * @param size Size of the font in points.
+     * @return Font of the file and size.
+     */
+    public static FontAsset getFont(String path, int size) {
+        return FONTS.computeIfAbsent(path + FONT_SIZE_SEPARATOR + size, key -> new FontAsset(path, size));
+    }
+
+    /**
+     * Create the sprite for an image file, drawn from the atlas if the file is packed into it. A file whose size no
+     * longer matches its region was changed after the atlas was packed, so it is drawn from its own file instead.
+     * @param path Path of the image file.
+     * @param atlas Sprite of the atlas, or null if the file is not packed.
+     * @param region X, y, width and height of the file's region in the atlas, or null if the file is not packed.
+     * @return Sprite of the image.
+     */
+    private static Sprite createSprite(String path, Sprite atlas, double[] region) {
+        Sprite sprite = new Sprite(path);
+        if (region != null && region[2] == sprite.getWidth() && region[3] == sprite.getHeight()) {
+            sprite.setRegion(atlas, region[0], region[1]);
+        }
+        return sprite;
+    }
+
+    /**
+     * Get the key of an image file, which is the same for every path to the file.
+     * @param path Path of the image file.
+     * @return Normalised absolute path of the file.
+     */
+    private static String getKey(String path) {
+        return new File(Sprite.resolve(path)).getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * Read the table of atlas regions, if the atlas has been packed.
+     * @return Region of each packed file, by the file's key.
+     */
+    private static Map<String, double[]> readRegions() {
+        HashMap<String, double[]> regions = new HashMap<>();
+        if (!AssetPack.exists(AtlasPacker.ATLAS_IMAGE)) {
+            return regions;
+        }
+        for (Map.Entry<String, double[]> entry : AtlasPacker.readTable(AtlasPacker.ATLAS_TABLE).entrySet()) {
+            if (AssetPack.exists(entry.getKey())) {
+                regions.put(getKey(entry.getKey()), entry.getValue());
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Add a reference to the texture of each of the given sprites.
+     * @param sprites Sprites to acquire.
+     */
+    public static synchronized void acquire(Collection<Sprite> sprites) {
+        for (Sprite sprite : sprites) {
+            REFERENCES.merge(sprite.getTexture(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Remove a reference from the texture of each of the given sprites, unloading the textures no longer referenced.
+     * @param sprites Sprites to release.
+     */
+    public static synchronized void release(Collection<Sprite> sprites) {
+        for (Sprite sprite : sprites) {
+            Sprite texture = sprite.getTexture();
+            Integer references = REFERENCES.get(texture);
+            if (references == null) {
+                continue;
+            }
+            if (references > 1) {
+                REFERENCES.put(texture, references - 1);
+            } else {
+                REFERENCES.remove(texture);
+                texture.unload();
+            }
+        }
+    }
+
+    /**
+     * Forget sprites whose files are about to be written again, such as the chunks of a static layer that is baked
+     * again, so the next Sprite.get of their paths reads the new files. Their references are dropped and their images
+     * unloaded; releasing them afterwards has no effect.
+     * @param sprites Sprites to remove. They must be drawn from their own files rather than the atlas.
+     */
+    public static synchronized void remove(Collection<Sprite> sprites) {
+        for (Sprite sprite : sprites) {
+            REFERENCES.remove(sprite);
+            PENDING.remove(sprite);
+            sprite.unload();
+            BY_PATH.values().removeIf(value -> value == sprite);
+            BY_FILE.values().removeIf(value -> value == sprite);
+        }
+    }
+
+    /**
+     * Get the number of references to the texture a sprite is drawn from.
+     * @param sprite Sprite to check.
+     * @return Number of references.
+     */
+    public static synchronized int getReferences(Sprite sprite) {
+        return REFERENCES.getOrDefault(sprite.getTexture(), 0);
+    }
+
+    /**
+     * Check if the textures of the given sprites have all been loaded.
+     * @param sprites Sprites to check.
+     * @return True if there are sprites and their textures are loaded, false otherwise.
+     */
+    public static boolean isLoaded(Collection<Sprite> sprites) {
+        if (sprites.isEmpty()) {
+            return false;
+        }
+        for (Sprite sprite : sprites) {
+            if (!sprite.isLoaded()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Queue the textures of the given sprites to be loaded by loadPending, rather than when they are first drawn, so
+     * a level does not stutter as new objects come into view. Their files are read ahead on the common fork-join
+     * pool meanwhile, so loading them on the render thread does not wait for the disk. Does nothing in headless
+     * sessions.
+     * @param sprites Sprites to load.
+     */
+    public static void preload(Collection<Sprite> sprites) {
+        if (GameContext.current().isHeadless()) {
+            return;
+        }
+        for (Sprite sprite : sprites) {
+            Sprite texture = sprite.getTexture();
+            if (!texture.isLoaded()) {
+                PENDING.add(texture);
+                ForkJoinPool.commonPool().execute(() -> AssetPack.prefetch(texture.getPath()));
+            }
+        }
+    }
+
+    /**
+     * Load queued textures until they are all loaded or the time budget is spent, so loading a level's textures is
+     * spread over several frames instead of holding up one. Textures released since they were queued are skipped.
+     * Must be called on the render thread.
+     * @param budget Time to spend loading, in nanoseconds.
+     * @return True if no textures are left to load, false otherwise.
+     */
+    public static boolean loadPending(long budget) {
+        long start = System.nanoTime();
+        Sprite texture;
+        while ((texture = PENDING.peek()) != null) {
+            if (System.nanoTime() - start >= budget) {
+                return false;
+            }
+            PENDING.poll();
+            if (getReferences(texture) > 0) {
+                texture.getImage();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Count an image or font loaded on the render thread, for the startup report.
+     * @param nanos Time taken to load it, in nanoseconds.
+     */
+    public static void recordLoad(long nanos) {
+        LOADS.incrementAndGet();
+        LOAD_NANOS.addAndGet(nanos);
+    }
+
+    /**
+     * Get the number of images and fonts loaded so far.
+     */
+    public static long getLoads() {
+        return LOADS.get();
+    }
+
+    /**
+     * Get the total time spent loading images and fonts so far, in nanoseconds.
+     */
+    public static long getLoadNanos() {
+        return LOAD_NANOS.get();
+    }
+}
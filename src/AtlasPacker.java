@@ -0,0 +1,166 @@
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.*;
+import javax.imageio.*;
+
+/**
+ * AtlasPacker class packs the game's sprites into one texture atlas, so drawing the sprites of a level does not switch
+ * textures between every draw call. It is run by the build, in Maven's process-classes phase, from the project
+ * directory, so the atlas is packed again on every build and is not kept in version control. Every image under res
+ * small enough to be a sprite is packed into rows, tallest first, and written to res/atlas.png, with a table of where
+ * each image is in res/atlas.csv. The backgrounds are too big to pack, and are still drawn from their own files.
+ */
+public class AtlasPacker {
+
+    /**
+     * Path of the atlas image.
+     */
+    public static final String ATLAS_IMAGE = "res/atlas.png";
+
+    /**
+     * Path of the table of regions in the atlas. Each line holds the path of an image, then the x, y, width and height
+     * of its region.
+     */
+    public static final String ATLAS_TABLE = "res/atlas.csv";
+
+    private static final String RESOURCES = "res";
+    private static final String IMAGE_EXTENSION = ".png";
+    private static final String CSV_DELIMITER = ",";
+    private static final String FORMAT_NAME = "png";
+
+    // images bigger than this on either side are not packed
+    private static final int MAX_SPRITE_SIZE = 128;
+    private static final int ATLAS_WIDTH = 256;
+
+    // empty pixels around each region, so filtering does not bleed neighbouring sprites into each other
+    private static final int PADDING = 1;
+
+    // console messages
+    private static final String PACKED = "Packed %d images into a %dx%d atlas";
+
+    // error messages
+    private static final String READ_FAILED = "Image could not be read: %s";
+    private static final String WRITE_FAILED = "Atlas could not be written: %s";
+    private static final String TABLE_FAILED = "Atlas table could not be read: %s";
+
+    /**
+     * Constructor for AtlasPacker class. The packer only has static methods, so it is never constructed.
+     */
+    private AtlasPacker() {
+    }
+
+    /**
+     * Read the table of regions written by the packer.
+     * @param table Path of the table.
+     * @return X, y, width and height of the region of each image, by the image's path. Empty if there is no table.
+     */
+    public static Map<String, double[]> readTable(String table) {
+        HashMap<String, double[]> regions = new HashMap<>();
+        if (!AssetPack.exists(table)) {
+            return regions;
+        }
+        try (BufferedReader br = new BufferedReader(AssetPack.openReader(table))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] values = line.split(CSV_DELIMITER);
+                regions.put(values[0], new double[] {
+                    Double.parseDouble(values[1]), Double.parseDouble(values[2]),
+                    Double.parseDouble(values[3]), Double.parseDouble(values[4])
+                });
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException(String.format(TABLE_FAILED, table), e);
+        }
+        return regions;
+    }
+
+    /**
+     * Find the images under a directory, in order of their paths.
+     * @param directory Directory to search.
+     * @param images List to add the images to.
+     */
+    private static void findImages(File directory, ArrayList<File> images) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findImages(file, images);
+            } else if (file.getName().toLowerCase().endsWith(IMAGE_EXTENSION)
+                    && !file.getPath().equals(new File(ATLAS_IMAGE).getPath())) {
+                images.add(file);
+            }
+        }
+    }
+
+    /**
+     * The entry point for packing the atlas.
+     */
+    public static void main(String[] args) {
+        ArrayList<File> files = new ArrayList<>();
+        findImages(new File(RESOURCES), files);
+
+        // read the images small enough to pack
+        LinkedHashMap<File, BufferedImage> images = new LinkedHashMap<>();
+        for (File file : files) {
+            try {
+                BufferedImage image = ImageIO.read(file);
+                if (image == null) {
+                    throw new RuntimeException(String.format(READ_FAILED, file));
+                }
+                if (image.getWidth() <= MAX_SPRITE_SIZE && image.getHeight() <= MAX_SPRITE_SIZE) {
+                    images.put(file, image);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(String.format(READ_FAILED, file), e);
+            }
+        }
+
+        // pack tallest first into rows, starting a new row when the current one is full
+        ArrayList<File> order = new ArrayList<>(images.keySet());
+        order.sort((a, b) -> images.get(b).getHeight() - images.get(a).getHeight());
+        LinkedHashMap<File, int[]> regions = new LinkedHashMap<>();
+        int x = PADDING;
+        int y = PADDING;
+        int rowHeight = 0;
+        for (File file : order) {
+            BufferedImage image = images.get(file);
+            if (x + image.getWidth() + PADDING > ATLAS_WIDTH) {
+                x = PADDING;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            regions.put(file, new int[] {x, y, image.getWidth(), image.getHeight()});
+            x += image.getWidth() + PADDING;
+            rowHeight = Math.max(rowHeight, image.getHeight());
+        }
+        int height = y + rowHeight + PADDING;
+
+        // draw the atlas and write the table
+        BufferedImage atlas = new BufferedImage(ATLAS_WIDTH, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = atlas.createGraphics();
+        for (Map.Entry<File, int[]> entry : regions.entrySet()) {
+            int[] region = entry.getValue();
+            graphics.drawImage(images.get(entry.getKey()), region[0], region[1], null);
+        }
+        graphics.dispose();
+        try (PrintWriter table = new PrintWriter(new FileWriter(ATLAS_TABLE))) {
+            ImageIO.write(atlas, FORMAT_NAME, new File(ATLAS_IMAGE));
+            for (File file : files) {
+                int[] region = regions.get(file);
+                if (region == null) {
+                    continue;
+                }
+                table.println(String.join(CSV_DELIMITER, file.getPath().replace(File.separatorChar, '/'),
+                    Integer.toString(region[0]), Integer.toString(region[1]),
+                    Integer.toString(region[2]), Integer.toString(region[3])));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, ATLAS_IMAGE), e);
+        }
+        System.out.println(String.format(PACKED, regions.size(), ATLAS_WIDTH, height));
+    }
+}
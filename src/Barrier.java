@@ -11,7 +11,7 @@ public class Barrier extends GameObject {
      * @param image Image of the barrier.
      * @param position Position of the barrier.
      */
-    public Barrier(Image image, Point position) {
+    public Barrier(Sprite image, Point position) {
         super(image, position);
     }
 
@@ -21,7 +21,16 @@ public class Barrier extends GameObject {
      * @param position Position of the barrier.
      */
     public Barrier(String image, Point position) {
-        super(new Image(image), position);
+        super(Sprite.get(image), position);
+    }
+
+    /**
+     * Get the collision layer of the barrier.
+     * @return Collision layer bit.
+     */
+    @Override
+    public int getLayer() {
+        return Layer.BARRIER;
     }
 
     /**
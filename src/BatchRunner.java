@@ -0,0 +1,256 @@
+import bagel.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * BatchRunner class plays many headless games of level 1 in parallel with a scripted player, to measure how changes
+ * to the demons' speed, attack radius and damage affect the game. Each session has its own GameContext and random
+ * seed, so sessions do not share state and a sweep can be repeated exactly. Run the main method with any of these
+ * arguments: sessions=N threads=N seed=N seconds=N speed=X radius=N damage=N demons=N parallel=true. demons=N spawns
+ * that many extra demons on the player as each session starts. The report ends with the sum of every session's final
+ * state hash, so two sweeps that should play out the same can be checked against each other. The parallel demon update
+ * only runs on levels with at least ParallelDemonUpdate.PARALLEL_THRESHOLD demons, so to check it against the
+ * single-threaded update, compare parallel=false and parallel=true with enough demons, e.g. demons=300, and check that
+ * the report counts parallel updates.
+ */
+public class BatchRunner {
+
+    private static final int DEFAULT_SESSIONS = 10000;
+    private static final int DEFAULT_SECONDS = 180;
+    private static final String SEPARATOR = "=";
+
+    // error messages
+    private static final String INVALID_ARGUMENT = "Invalid argument: %s";
+
+    // report
+    private static final String REPORT = "%d sessions on %d threads in %.2f s (%.1f sessions/s)%n"
+        + "Win rate: %.1f%%, loss rate: %.1f%%, timed out: %.1f%%%n"
+        + "Mean time to kill Navec: %.1f s%n"
+        + "Mean damage taken: %.1f%n"
+        + "Parallel demon updates: %d%n"
+        + "State hash: %016x";
+
+    private final int sessions;
+    private final int threads;
+    private final long seed;
+    private final int maxTicks;
+    private final double speedScale;
+    private final int attackRadius;
+    private final int damagePoints;
+    private final int demons;
+    private final boolean parallel;
+
+    /**
+     * Outcome of one session.
+     */
+    private static class SessionResult {
+        private final int stage;
+        private final int ticks;
+        private final int damageTaken;
+        private final long parallelRuns;
+        private final long stateHash;
+
+        /**
+         * Constructor for SessionResult class.
+         * @param stage Stage the session ended in.
+         * @param ticks Number of ticks the session ran for.
+         * @param damageTaken Damage the player took.
+         * @param parallelRuns Number of times the demons were updated in parallel.
+         * @param stateHash State hash at the end of the session.
+         */
+        private SessionResult(int stage, int ticks, int damageTaken, long parallelRuns, long stateHash) {
+            this.stage = stage;
+            this.ticks = ticks;
+            this.damageTaken = damageTaken;
+            this.parallelRuns = parallelRuns;
+            this.stateHash = stateHash;
+        }
+    }
+
+    /**
+     * Constructor for BatchRunner class.
+     * @param sessions Number of sessions to play.
+     * @param threads Number of threads to play them on.
+     * @param seed Seed of the first session; each later session adds one.
+     * @param maxTicks Number of ticks after which a session counts as timed out.
+     * @param speedScale Factor applied to the demons' speed.
+     * @param attackRadius Attack radius of the demons, or 0 to keep the defaults.
+     * @param damagePoints Damage points of the demons, or 0 to keep the defaults.
+     * @param demons Number of extra demons to spawn on the player as each session starts.
+     * @param parallel True to update each session's demons on the fork-join pool as well.
+     */
+    public BatchRunner(int sessions, int threads, long seed, int maxTicks, double speedScale, int attackRadius,
+                       int damagePoints, int demons, boolean parallel) {
+        this.sessions = sessions;
+        this.threads = threads;
+        this.seed = seed;
+        this.maxTicks = maxTicks;
+        this.speedScale = speedScale;
+        this.attackRadius = attackRadius;
+        this.damagePoints = damagePoints;
+        this.demons = demons;
+        this.parallel = parallel;
+    }
+
+    /**
+     * The entry point for the batch runner.
+     */
+    public static void main(String[] args) {
+        int sessions = DEFAULT_SESSIONS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+        int seconds = DEFAULT_SECONDS;
+        double speedScale = 1;
+        int attackRadius = 0;
+        int damagePoints = 0;
+        int demons = 0;
+        boolean parallel = false;
+
+        for (String arg : args) {
+            String[] pair = arg.split(SEPARATOR, 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException(String.format(INVALID_ARGUMENT, arg));
+            }
+            switch (pair[0]) {
+                case "sessions":
+                    sessions = Integer.parseInt(pair[1]);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(pair[1]);
+                    break;
+                case "seed":
+                    seed = Long.parseLong(pair[1]);
+                    break;
+                case "seconds":
+                    seconds = Integer.parseInt(pair[1]);
+                    break;
+                case "speed":
+                    speedScale = Double.parseDouble(pair[1]);
+                    break;
+                case "radius":
+                    attackRadius = Integer.parseInt(pair[1]);
+                    break;
+                case "damage":
+                    damagePoints = Integer.parseInt(pair[1]);
+                    break;
+                case "demons":
+                    demons = Integer.parseInt(pair[1]);
+                    break;
+                case "parallel":
+                    parallel = Boolean.parseBoolean(pair[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format(INVALID_ARGUMENT, arg));
+            }
+        }
+
+        BatchRunner runner = new BatchRunner(sessions, threads, seed, seconds * SimClock.TICK_RATE, speedScale,
+                                             attackRadius, damagePoints, demons, parallel);
+        System.out.println(runner.run());
+    }
+
+    /**
+     * Play every session and report the statistics.
+     * @return Report of the outcome statistics.
+     */
+    public String run() {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<SessionResult>> futures = new ArrayList<>(sessions);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < sessions; i++) {
+                long sessionSeed = seed + i;
+                futures.add(pool.submit(() -> runSession(sessionSeed)));
+            }
+
+            int won = 0;
+            int lost = 0;
+            long ticksToKill = 0;
+            long damageTaken = 0;
+            long parallelRuns = 0;
+            long stateHash = 0;
+            for (Future<SessionResult> future : futures) {
+                SessionResult result = future.get();
+                if (result.stage == Level.GAME_WON_STAGE) {
+                    won++;
+                    ticksToKill += result.ticks;
+                } else if (result.stage == Level.GAME_OVER_STAGE) {
+                    lost++;
+                }
+                damageTaken += result.damageTaken;
+                parallelRuns += result.parallelRuns;
+                stateHash += result.stateHash;
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            int timedOut = sessions - won - lost;
+            return String.format(REPORT, sessions, threads, elapsed, sessions / elapsed,
+                                 100.0 * won / sessions, 100.0 * lost / sessions, 100.0 * timedOut / sessions,
+                                 won == 0 ? 0 : (double) ticksToKill / won / SimClock.TICK_RATE,
+                                 (double) damageTaken / sessions, parallelRuns, stateHash);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Play one headless session of level 1 on the current thread.
+     * @param sessionSeed Seed of the session's random number generator.
+     * @return Outcome of the session.
+     */
+    private SessionResult runSession(long sessionSeed) {
+        GameContext context = new GameContext(new Random(sessionSeed), true, false);
+        context.setStage(Level.LEVEL1_STAGE);
+        GameContext.bind(context);
+        try {
+            // sessions already run in parallel, so each one updates its demons on its own thread by default
+            Level1 level = new Level1();
+            level.getParallelUpdate().setEnabled(parallel);
+
+            // prepare the level and leave the start screen, then spawn the extra demons
+            InputState start = new InputState();
+            start.setPressed(Keys.SPACE, true);
+            ShadowDimension.advanceTick();
+            level.update(start);
+            Player player = level.getRegistry().getPlayer();
+            if (demons > 0) {
+                level.getSpawner().setSpawnPoints(Collections.singletonList(player.getPosition()));
+                level.getSpawner().spawnWave(demons);
+            }
+            applyBalance(level.getRegistry());
+
+            PlayerPolicy policy = new ChasePolicy();
+            int ticks = 0;
+            while (context.getStage() == Level.LEVEL1_STAGE && ticks < maxTicks) {
+                ShadowDimension.advanceTick();
+                level.update(policy.decide(player, level.getRegistry()));
+                ticks++;
+            }
+            return new SessionResult(context.getStage(), ticks, player.getMaxHealth() - player.getHealth(),
+                                     level.getParallelUpdate().getRuns(), context.getStateHash().getValue());
+        } finally {
+            GameContext.bind(null);
+        }
+    }
+
+    /**
+     * Apply the balance settings being tested to every demon in the level.
+     * @param registry Entity registry of the level.
+     */
+    private void applyBalance(EntityRegistry registry) {
+        for (Demon demon : registry.getDemons()) {
+            demon.scaleSpeed(speedScale);
+            if (attackRadius > 0) {
+                demon.setAttackRadius(attackRadius);
+            }
+            if (damagePoints > 0) {
+                demon.setDamagePoints(damagePoints);
+            }
+        }
+    }
+}
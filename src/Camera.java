@@ -0,0 +1,116 @@
+import bagel.util.*;
+
+/**
+ * Camera class is the part of a level shown in the window. It follows the player, centred on them, but stops at the
+ * edges of the level's boundary, so a level bigger than the window scrolls and a level that fits in the window does
+ * not move at all. The camera keeps where it was on the tick before as well as where it is now, so scrolling is
+ * interpolated the same way as the objects it follows.
+ */
+public class Camera {
+
+    private final double width;
+    private final double height;
+    private double x;
+    private double y;
+    private double prevX;
+    private double prevY;
+
+    /**
+     * Constructor for Camera class. The camera starts at the top left corner of the level.
+     * @param width Width of the view in pixels.
+     * @param height Height of the view in pixels.
+     */
+    public Camera(double width, double height) {
+        this.width = width;
+        this.height = height;
+        this.x = 0;
+        this.y = 0;
+        this.prevX = 0;
+        this.prevY = 0;
+    }
+
+    /**
+     * Centre the camera on a moving object, as far as the boundary allows.
+     * @param movingObject Object to follow.
+     * @param boundary Boundary of the level.
+     */
+    public void follow(MovingObject movingObject, Boundary boundary) {
+        double halfWidth = movingObject.getImage().getWidth() / 2;
+        double halfHeight = movingObject.getImage().getHeight() / 2;
+        Point from = movingObject.getDrawnPos();
+        Point to = movingObject.getPosition();
+        Point topLeft = boundary.getTopLeft();
+        Point bottomRight = boundary.getBottomRight();
+        prevX = clamp(from.x + halfWidth - width / 2, topLeft.x, bottomRight.x, width);
+        prevY = clamp(from.y + halfHeight - height / 2, topLeft.y, bottomRight.y, height);
+        x = clamp(to.x + halfWidth - width / 2, topLeft.x, bottomRight.x, width);
+        y = clamp(to.y + halfHeight - height / 2, topLeft.y, bottomRight.y, height);
+    }
+
+    /**
+     * Keep one side of the view within the boundary. A boundary that fits in the view keeps the view at the origin.
+     * @param origin Left or top of the view centred on the followed object.
+     * @param min Left or top of the boundary.
+     * @param max Right or bottom of the boundary.
+     * @param size Width or height of the view.
+     * @return Left or top of the view.
+     */
+    private static double clamp(double origin, double min, double max, double size) {
+        double lowest = Math.min(0, min);
+        double highest = Math.max(lowest, max - size);
+        return Math.max(lowest, Math.min(highest, origin));
+    }
+
+    /**
+     * Get the x coordinate of the left of the view.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Get the y coordinate of the top of the view.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Get the x coordinate of the left of the view on the tick before.
+     */
+    public double getPrevX() {
+        return prevX;
+    }
+
+    /**
+     * Get the y coordinate of the top of the view on the tick before.
+     */
+    public double getPrevY() {
+        return prevY;
+    }
+
+    /**
+     * Get the area of the level in view, on this tick or the tick before.
+     * @param margin Distance to extend the area by on every side.
+     * @return Area in view.
+     */
+    public Rectangle getViewport(double margin) {
+        double left = Math.min(x, prevX) - margin;
+        double top = Math.min(y, prevY) - margin;
+        return new Rectangle(left, top, width + Math.abs(x - prevX) + 2 * margin,
+            height + Math.abs(y - prevY) + 2 * margin);
+    }
+
+    /**
+     * Check if any of an area is in view.
+     * @param left X coordinate of the left of the area.
+     * @param top Y coordinate of the top of the area.
+     * @param areaWidth Width of the area.
+     * @param areaHeight Height of the area.
+     * @return True if the area is at least partly in view, false otherwise.
+     */
+    public boolean isVisible(double left, double top, double areaWidth, double areaHeight) {
+        return left + areaWidth >= Math.min(x, prevX) && left <= Math.max(x, prevX) + width
+            && top + areaHeight >= Math.min(y, prevY) && top <= Math.max(y, prevY) + height;
+    }
+}
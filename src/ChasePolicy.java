@@ -0,0 +1,75 @@
+import bagel.*;
+import bagel.util.*;
+
+/**
+ * ChasePolicy class walks the player towards the nearest demon and attacks once it is close enough. When the player
+ * stops moving, e.g. because a wall is in the way, it walks along the other axis for a while to get around it.
+ */
+public class ChasePolicy implements PlayerPolicy {
+
+    private static final double ATTACK_DISTANCE = 60;
+    private static final int DETOUR_TICKS = 30;
+
+    private Point lastPosition;
+    private int detourTicks;
+
+    /**
+     * Constructor for ChasePolicy class.
+     */
+    public ChasePolicy() {
+        this.lastPosition = null;
+        this.detourTicks = 0;
+    }
+
+    /**
+     * Decide the input for the next tick.
+     * @param player Player being controlled.
+     * @param registry Entity registry of the level.
+     * @return Input for the next tick.
+     */
+    @Override
+    public InputState decide(Player player, EntityRegistry registry) {
+        InputState input = new InputState();
+        Point centre = player.getRectangle().centre();
+
+        // find the nearest demon
+        Demon target = null;
+        double targetDistance = Double.MAX_VALUE;
+        for (Demon demon : registry.getDemons()) {
+            double distance = demon.getRectangle().centre().distanceTo(centre);
+            if (distance < targetDistance) {
+                target = demon;
+                targetDistance = distance;
+            }
+        }
+        if (target == null) {
+            return input;
+        }
+
+        if (targetDistance <= ATTACK_DISTANCE) {
+            input.setPressed(Keys.A, true);
+        }
+
+        // detour along the other axis if the player did not move last tick
+        Point position = player.getPosition();
+        if (lastPosition != null && lastPosition.x == position.x && lastPosition.y == position.y) {
+            detourTicks = DETOUR_TICKS;
+        }
+        lastPosition = position;
+
+        Point targetCentre = target.getRectangle().centre();
+        double dx = targetCentre.x - centre.x;
+        double dy = targetCentre.y - centre.y;
+        boolean horizontal = Math.abs(dx) >= Math.abs(dy);
+        if (detourTicks > 0) {
+            horizontal = !horizontal;
+            detourTicks--;
+        }
+        if (horizontal) {
+            input.setDown(dx < 0 ? Keys.LEFT : Keys.RIGHT, true);
+        } else {
+            input.setDown(dy < 0 ? Keys.UP : Keys.DOWN, true);
+        }
+        return input;
+    }
+}
@@ -0,0 +1,119 @@
+import bagel.util.*;
+import java.util.*;
+
+/**
+ * ContactCache class generates the contacts of a game object, i.e. every nearby object in the given layers that its
+ * rectangle intersects, in a single narrow-phase pass. Contacts are reused from the previous pass when neither the
+ * object nor anything in the cells around it has moved since, so a stationary scene costs only a few cell lookups per
+ * tick.
+ */
+public class ContactCache {
+
+    private final EntityRegistry registry;
+    private final IdentityHashMap<GameObject, Contacts> entries;
+    private final ArrayList<GameObject> candidates;
+
+    /**
+     * The contacts of a game object and the state they were generated from.
+     */
+    private static class Contacts {
+        private final ArrayList<GameObject> gameObjects = new ArrayList<>();
+        private final long[] versions = new long[Layer.COUNT];
+        private int mask;
+        private double left;
+        private double top;
+        private double right;
+        private double bottom;
+    }
+
+    /**
+     * Constructor for ContactCache class.
+     * @param registry Entity registry to generate contacts from.
+     */
+    public ContactCache(EntityRegistry registry) {
+        this.registry = registry;
+        this.entries = new IdentityHashMap<>();
+        this.candidates = new ArrayList<>();
+    }
+
+    /**
+     * Get the contacts of a game object in the given layers. The returned list is owned by the cache and is only
+     * valid until the next call for the same object.
+     * @param gameObject Game object to get the contacts of.
+     * @param mask Layers to find contacts in.
+     * @return Game objects that intersect the given game object.
+     */
+    public List<GameObject> getContacts(GameObject gameObject, int mask) {
+        Rectangle rectangle = gameObject.getRectangle();
+        Contacts contacts = entries.get(gameObject);
+        if (contacts != null && contacts.mask == mask && isSameRectangle(contacts, rectangle)
+            && registry.isUnchangedSince(rectangle, mask, contacts.versions)) {
+            return contacts.gameObjects;
+        }
+
+        if (contacts == null) {
+            contacts = new Contacts();
+            entries.put(gameObject, contacts);
+        }
+        contacts.mask = mask;
+        for (int i = 0; i < Layer.COUNT; i++) {
+            contacts.versions[i] = registry.getSpatialHash(1 << i).getVersion();
+        }
+        contacts.left = rectangle.left();
+        contacts.top = rectangle.top();
+        contacts.right = rectangle.right();
+        contacts.bottom = rectangle.bottom();
+
+        // narrow phase over the broad-phase candidates
+        contacts.gameObjects.clear();
+        candidates.clear();
+        registry.query(rectangle, mask, candidates);
+        for (GameObject candidate : candidates) {
+            if (candidate != gameObject && candidate.collides(gameObject)) {
+                contacts.gameObjects.add(candidate);
+            }
+        }
+        return contacts.gameObjects;
+    }
+
+    /**
+     * Forget the contacts of a game object, e.g. once it has been removed from the level.
+     * @param gameObject Game object to forget.
+     */
+    public void remove(GameObject gameObject) {
+        entries.remove(gameObject);
+    }
+
+    /**
+     * Forget the contacts of every game object.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the first contact in the given layers.
+     * @param contacts Contacts to search.
+     * @param mask Layers of the contact.
+     * @return First contact in the given layers, if any. Otherwise, null.
+     */
+    public static GameObject getContact(List<GameObject> contacts, int mask) {
+        for (GameObject contact : contacts) {
+            if ((contact.getLayer() & mask) != 0) {
+                return contact;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check if the cached contacts were generated from the given rectangle.
+     * @param contacts Cached contacts.
+     * @param rectangle Current rectangle of the game object.
+     * @return True if the rectangle is unchanged, false otherwise.
+     */
+    private static boolean isSameRectangle(Contacts contacts, Rectangle rectangle) {
+        return rectangle.left() == contacts.left && rectangle.top() == contacts.top
+            && rectangle.right() == contacts.right && rectangle.bottom() == contacts.bottom;
+    }
+}
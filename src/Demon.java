@@ -1,5 +1,7 @@
 import bagel.*;
 import bagel.util.*;
+import java.io.*;
+import java.util.*;
 
 /**
  * Demons which can attack the player.
@@ -29,25 +31,31 @@ public class Demon extends Entity implements Attacker {
     /**
      * Default demon fire image.
      */
-    public static final Image DEFAULT_FIRE = new Image("res/demon/demonFire.png");
+    public static final Sprite DEFAULT_FIRE = Sprite.get("res/demon/demonFire.png");
 
     /**
      * Default demon name.
      */
     public static final String DEFAULT_NAME = "Demon";
 
-    private static final Image[] DEFAULT_DEMON_IMAGES = {
-        new Image("res/demon/demonLeft.png"),
-        new Image("res/demon/demonRight.png"),
-        new Image("res/demon/demonInvincibleLeft.png"),
-        new Image("res/demon/demonInvincibleRight.png")
+    private static final Sprite[] DEFAULT_DEMON_IMAGES = {
+        Sprite.get("res/demon/demonLeft.png"),
+        Sprite.get("res/demon/demonRight.png"),
+        Sprite.get("res/demon/demonInvincibleLeft.png"),
+        Sprite.get("res/demon/demonInvincibleRight.png")
     };
     
     // variables for demon
     private int attackRadius;
-    private Image fireImage;
+    private Sprite fireImage;
+    private FireEmitter fireEmitter;
     private Vector2 direction;
-    private Image[] images;
+    private Sprite[] images;
+    private long invincibleEndTime;
+
+    // entry in the structure-of-arrays storage, if attached to one
+    private DemonData data;
+    private int dataSlot;
 
     /**
      * Constructor for Demon class.
@@ -60,7 +68,11 @@ public class Demon extends Entity implements Attacker {
         this.direction = direction;
         this.attackRadius = DEFAULT_ATTACK_RADIUS;
         this.fireImage = DEFAULT_FIRE;
+        this.fireEmitter = new FireEmitter(this, fireImage);
         this.images =  DEFAULT_DEMON_IMAGES;
+        this.invincibleEndTime = 0;
+        this.data = null;
+        this.dataSlot = -1;
     }
 
     /**
@@ -75,20 +87,273 @@ public class Demon extends Entity implements Attacker {
      * @param direction Direction the demon moves in.
      * @param name Name of the demon.
      */
-    public Demon(Image fireImage, Image[] images, int attackRadius, int maxHealth, int damagePoints, 
+    public Demon(Sprite fireImage, Sprite[] images, int attackRadius, int maxHealth, int damagePoints, 
                     Point position, double speed, Vector2 direction, String name) {
         super(images, position, speed, maxHealth, damagePoints, name);
         this.direction = direction;
         this.attackRadius = attackRadius;
         this.fireImage = fireImage;
+        this.fireEmitter = new FireEmitter(this, fireImage);
         this.images = images;
+        this.invincibleEndTime = 0;
+        this.data = null;
+        this.dataSlot = -1;
+    }
+
+    /**
+     * Get the collision layer of the demon.
+     * @return Collision layer bit.
+     */
+    @Override
+    public int getLayer() {
+        return Layer.DEMON;
+    }
+
+    /**
+     * Add the sprites of the demon, including when invincible, and of its fire to a collection.
+     * @param sprites Collection to add the sprites to.
+     */
+    @Override
+    public void collectSprites(Collection<Sprite> sprites) {
+        super.collectSprites(sprites);
+        Collections.addAll(sprites, images);
+        sprites.add(fireImage);
+    }
+
+    /**
+     * Add the sprites of demons spawned with the default images to a collection.
+     * @param sprites Collection to add the sprites to.
+     */
+    public static void collectDefaultSprites(Collection<Sprite> sprites) {
+        Collections.addAll(sprites, DEFAULT_DEMON_IMAGES);
+        sprites.add(DEFAULT_FIRE);
+    }
+
+    /**
+     * Respawn the demon at full health, e.g. when it is reused from a pool. The demon keeps its images, fire and
+     * timers.
+     * @param position Position of the demon.
+     * @param speed Speed of the demon before timescale is applied.
+     * @param direction Direction the demon moves in.
+     */
+    public void respawn(Point position, double speed, Vector2 direction) {
+        reset(position, speed);
+        setInvincibleEndTime(ShadowDimension.getTime());
+        setDirection(direction);
+        setImages(images[IMG_LEFT], images[IMG_RIGHT]);
+        updateImages();
+    }
+
+    /**
+     * Attach the demon to structure-of-arrays storage. From then on, the demon's position, direction, speed, health
+     * and invincibility are read from and written to its entry in the storage.
+     * @param data Storage to attach to.
+     */
+    public void attach(DemonData data) {
+        Point position = getPosition();
+        Point prevPos = getPrevPos();
+        Vector2 direction = getDirection();
+        double speed = getSpeed();
+        int health = getHealth();
+        long invincibleEndTime = getInvincibleEndTime();
+
+        int slot = data.add(this);
+        data.getX()[slot] = position.x;
+        data.getY()[slot] = position.y;
+        data.getPrevX()[slot] = prevPos.x;
+        data.getPrevY()[slot] = prevPos.y;
+        data.getDirX()[slot] = direction.x;
+        data.getDirY()[slot] = direction.y;
+        data.getSpeed()[slot] = speed;
+        data.getWidth()[slot] = getImage().getWidth();
+        data.getHeight()[slot] = getImage().getHeight();
+        data.getHealth()[slot] = health;
+        data.getInvincibleEndTime()[slot] = invincibleEndTime;
+        this.data = data;
+        this.dataSlot = slot;
+    }
+
+    /**
+     * Detach the demon from its structure-of-arrays storage, copying its state back into the demon.
+     */
+    public void detach() {
+        if (data == null) {
+            return;
+        }
+        Point prevPos = getPrevPos();
+        Vector2 direction = getDirection();
+        double speed = getSpeed();
+        int health = getHealth();
+        long invincibleEndTime = getInvincibleEndTime();
+
+        data.remove(dataSlot);
+        this.data = null;
+        this.dataSlot = -1;
+        setPrevPos(prevPos);
+        setDirection(direction);
+        setSpeed(speed);
+        setHealth(health);
+        setInvincibleEndTime(invincibleEndTime);
+    }
+
+    /**
+     * Set the slot of the demon's entry, when the storage moves the entry. Only called by DemonData.
+     * @param dataSlot Slot of the demon's entry.
+     */
+    public void setDataSlot(int dataSlot) {
+        this.dataSlot = dataSlot;
+    }
+
+    /**
+     * Get the slot of the demon's entry in its structure-of-arrays storage.
+     * @return Slot of the entry, or -1 if the demon is not attached.
+     */
+    public int getDataSlot() {
+        return dataSlot;
+    }
+
+    /**
+     * Update the demon after its entry has been moved directly in the structure-of-arrays storage, bringing its
+     * rectangle, facing and images up to date.
+     */
+    public void syncMoved() {
+        double x = data.getX()[dataSlot];
+        super.setPosition(new Point(x, data.getY()[dataSlot]));
+        updateFacing(data.getPrevX()[dataSlot], x);
+        updateImages();
+        data.getWidth()[dataSlot] = getImage().getWidth();
+        data.getHeight()[dataSlot] = getImage().getHeight();
+    }
+
+    /**
+     * Set the position of the demon.
+     * @param position Position of the demon as a point.
+     */
+    @Override
+    public void setPosition(Point position) {
+        super.setPosition(position);
+        if (data != null) {
+            data.getX()[dataSlot] = position.x;
+            data.getY()[dataSlot] = position.y;
+        }
+    }
+
+    /**
+     * Get the demon's previous position.
+     * @return Demon's previous position.
+     */
+    @Override
+    public Point getPrevPos() {
+        if (data == null) {
+            return super.getPrevPos();
+        }
+        return new Point(data.getPrevX()[dataSlot], data.getPrevY()[dataSlot]);
+    }
+
+    /**
+     * Set the demon's previous position.
+     * @param prevPos Demon's previous position.
+     */
+    @Override
+    protected void setPrevPos(Point prevPos) {
+        if (data == null) {
+            super.setPrevPos(prevPos);
+        } else {
+            data.getPrevX()[dataSlot] = prevPos.x;
+            data.getPrevY()[dataSlot] = prevPos.y;
+        }
+    }
+
+    /**
+     * Get the demon's speed.
+     * @return Demon's speed.
+     */
+    @Override
+    public double getSpeed() {
+        return data == null ? super.getSpeed() : data.getSpeed()[dataSlot];
+    }
+
+    /**
+     * Set the demon's speed.
+     * @param speed Demon's speed.
+     */
+    @Override
+    public void setSpeed(double speed) {
+        if (data == null) {
+            super.setSpeed(speed);
+        } else {
+            data.getSpeed()[dataSlot] = speed;
+        }
+    }
+
+    /**
+     * Get the demon's health.
+     * @return Demon's health as an integer.
+     */
+    @Override
+    public int getHealth() {
+        return data == null ? super.getHealth() : data.getHealth()[dataSlot];
+    }
+
+    /**
+     * Set the demon's health, clamped between 0 and the demon's maximum health.
+     * @param health Demon's health.
+     */
+    @Override
+    public void setHealth(int health) {
+        super.setHealth(health);
+        if (data != null) {
+            data.getHealth()[dataSlot] = super.getHealth();
+        }
+    }
+
+    /**
+     * Get the simulation time at which the demon stops being invincible.
+     * @return Simulation time at which invincibility ends.
+     */
+    @Override
+    public long getInvincibleEndTime() {
+        return data == null ? invincibleEndTime : data.getInvincibleEndTime()[dataSlot];
+    }
+
+    /**
+     * Set the simulation time at which the demon stops being invincible.
+     * @param invincibleEndTime Simulation time at which invincibility ends.
+     */
+    public void setInvincibleEndTime(long invincibleEndTime) {
+        if (data == null) {
+            this.invincibleEndTime = invincibleEndTime;
+        } else {
+            data.getInvincibleEndTime()[dataSlot] = invincibleEndTime;
+        }
+        updateStateTerm();
+    }
+
+    /**
+     * Check if the demon is invincible.
+     * @return True if the demon is invincible, false otherwise.
+     */
+    @Override
+    public boolean isInvincible() {
+        return ShadowDimension.getTime() < getInvincibleEndTime();
+    }
+
+    /**
+     * Make the demon invincible.
+     */
+    @Override
+    public void makeInvincible() {
+        setInvincibleEndTime(Timer.endTime(ShadowDimension.getTime(), INVINCIBLE_MS / MS_TO_SEC));
     }
 
     /**
      * Get the direction of the demon.
      */
     public Vector2 getDirection() {
-        return direction;
+        if (data == null) {
+            return direction;
+        }
+        return new Vector2(data.getDirX()[dataSlot], data.getDirY()[dataSlot]);
     }
 
     /**
@@ -96,7 +361,40 @@ public class Demon extends Entity implements Attacker {
      * @param direction Direction to move in for the demon.
      */
     public void setDirection(Vector2 direction) {
-        this.direction = direction;
+        if (data == null) {
+            this.direction = direction;
+        } else {
+            data.getDirX()[dataSlot] = direction.x;
+            data.getDirY()[dataSlot] = direction.y;
+        }
+    }
+
+    /**
+     * Write the state of the demon to a replay keyframe.
+     * @param out Stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        super.writeState(out);
+        Vector2 direction = getDirection();
+        out.writeInt(attackRadius);
+        out.writeDouble(direction.x);
+        out.writeDouble(direction.y);
+        out.writeLong(getInvincibleEndTime());
+    }
+
+    /**
+     * Read the state of the demon written by writeState.
+     * @param in Stream to read from.
+     * @throws IOException If the stream could not be read.
+     */
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        super.readState(in);
+        this.attackRadius = in.readInt();
+        setDirection(new Vector2(in.readDouble(), in.readDouble()));
+        setInvincibleEndTime(in.readLong());
     }
 
     /**
@@ -141,7 +439,7 @@ public class Demon extends Entity implements Attacker {
         // if the demon is invincible, do not take damage, otherwise take damage and become invincible
         if (!isInvincible()) {
             this.setHealth(this.getHealth() - damage);
-            setInvincibleTimer(new Timer(ShadowDimension.getFrames(), INVINCIBLE_MS / MS_TO_SEC));
+            makeInvincible();
             setImages(images[IMG_ABILITY_LEFT], images[IMG_ABILITY_RIGHT]);
         }
     }
@@ -162,7 +460,7 @@ public class Demon extends Entity implements Attacker {
      * @return True if the target is in attack range of the demon, false otherwise.
      */
     public boolean isInAttackRadius(Point position) {
-        return this.getRectangle().centre().distanceTo(position) <= attackRadius;
+        return isInAttackRadius(position.x, position.y);
     }
 
     /**
@@ -172,43 +470,38 @@ public class Demon extends Entity implements Attacker {
      * @return True if the target is in attack range of the demon, false otherwise.
      */
     public boolean isInAttackRadius(GameObject target) {
-        return isInAttackRadius(target.getRectangle().centre());
+        Rectangle rectangle = target.getRectangle();
+        Sprite image = target.getImage();
+        return isInAttackRadius(rectangle.left() + image.getWidth() / 2, rectangle.top() + image.getHeight() / 2);
     }
 
     /**
-     * Shoot fire at the target. Returns the Fire object created.
+     * Check if a point is in attack range of the demon, measured from the centre of the demon. The distance is worked
+     * out from the coordinates rather than bagel's points, as it is checked for every demon on every tick.
+     * @param x X coordinate of the point.
+     * @param y Y coordinate of the point.
+     * @return True if the point is in attack range of the demon, false otherwise.
+     */
+    private boolean isInAttackRadius(double x, double y) {
+        Rectangle rectangle = getRectangle();
+        Sprite image = getImage();
+        double dx = rectangle.left() + image.getWidth() / 2 - x;
+        double dy = rectangle.top() + image.getHeight() / 2 - y;
+        return dx * dx + dy * dy <= (double) attackRadius * attackRadius;
+    }
+
+    /**
+     * Shoot fire at the target. The demon reuses the same fire every time it shoots, so the fire returned is only
+     * valid until the demon next shoots.
      * @param target Target to shoot fire at.
-     * @return Fire object created.
+     * @return Fire shot by the demon, or null if the target is out of range.
      */
     public Fire shootFireAt(GameObject target) {
         // if the demon is not in attack range of the target, do not shoot fire
         if (!isInAttackRadius(target)) {
             return null;
         }
-
-        // if the demon is in attack range of the target, shoot fire
-        DrawOptions options = new DrawOptions();
-        double x, y;
-        if (target.getPosition().x <= this.getPosition().x && target.getPosition().y <= this.getPosition().y) {
-            options.setRotation(2 * Math.PI / 4 * 0);
-            x = getRectangle().topLeft().x - fireImage.getWidth();
-            y = getRectangle().topLeft().y - fireImage.getHeight();
-        } else if (target.getPosition().x <= this.getPosition().x && target.getPosition().y > this.getPosition().y) {
-            options.setRotation(2 * Math.PI / 4 * 3);
-            x = getRectangle().bottomLeft().x - fireImage.getWidth();
-            y = getRectangle().bottomLeft().y;
-        } else if (target.getPosition().x > this.getPosition().x && target.getPosition().y <= this.getPosition().y) {
-            options.setRotation(2 * Math.PI / 4 * 1);
-            x = getRectangle().topRight().x;
-            y = getRectangle().topRight().y - fireImage.getHeight();
-        } else if (target.getPosition().x > this.getPosition().x && target.getPosition().y > this.getPosition().y) {
-            options.setRotation(2 * Math.PI / 4 * 2);
-            x = getRectangle().bottomRight().x;
-            y = getRectangle().bottomRight().y;
-        } else {
-            return null;
-        }
-        return new Fire(this, fireImage, new Point(x, y), options, getDamagePoints());
+        return fireEmitter.shootAt(target);
     }
 
     /**
@@ -0,0 +1,189 @@
+import java.util.*;
+
+/**
+ * DemonData class stores the per-tick state of demons as parallel primitive arrays, one entry per demon. Demons that
+ * are attached to a DemonData act as thin views over their entry, so the hot loops that move and check every demon
+ * walk contiguous arrays rather than chasing each demon's object graph. Entries are kept densely packed; removing a
+ * demon moves the last entry into its place.
+ */
+public class DemonData {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Demon[] demons;
+    private double[] x;
+    private double[] y;
+    private double[] prevX;
+    private double[] prevY;
+    private double[] dirX;
+    private double[] dirY;
+    private double[] speed;
+    private double[] width;
+    private double[] height;
+    private int[] health;
+    private long[] invincibleEndTime;
+    private int size;
+
+    /**
+     * Constructor for DemonData class.
+     */
+    public DemonData() {
+        this.demons = new Demon[DEFAULT_CAPACITY];
+        this.x = new double[DEFAULT_CAPACITY];
+        this.y = new double[DEFAULT_CAPACITY];
+        this.prevX = new double[DEFAULT_CAPACITY];
+        this.prevY = new double[DEFAULT_CAPACITY];
+        this.dirX = new double[DEFAULT_CAPACITY];
+        this.dirY = new double[DEFAULT_CAPACITY];
+        this.speed = new double[DEFAULT_CAPACITY];
+        this.width = new double[DEFAULT_CAPACITY];
+        this.height = new double[DEFAULT_CAPACITY];
+        this.health = new int[DEFAULT_CAPACITY];
+        this.invincibleEndTime = new long[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Add an entry for a demon. Only called by Demon.attach, which fills in the entry.
+     * @param demon Demon to add.
+     * @return Slot of the demon's entry.
+     */
+    public int add(Demon demon) {
+        if (size == demons.length) {
+            int capacity = size * 2;
+            demons = Arrays.copyOf(demons, capacity);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            prevX = Arrays.copyOf(prevX, capacity);
+            prevY = Arrays.copyOf(prevY, capacity);
+            dirX = Arrays.copyOf(dirX, capacity);
+            dirY = Arrays.copyOf(dirY, capacity);
+            speed = Arrays.copyOf(speed, capacity);
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            health = Arrays.copyOf(health, capacity);
+            invincibleEndTime = Arrays.copyOf(invincibleEndTime, capacity);
+        }
+        demons[size] = demon;
+        return size++;
+    }
+
+    /**
+     * Remove the entry in a slot by moving the last entry into it. Only called by Demon.detach.
+     * @param slot Slot to remove.
+     */
+    public void remove(int slot) {
+        int last = size - 1;
+        if (slot != last) {
+            demons[slot] = demons[last];
+            x[slot] = x[last];
+            y[slot] = y[last];
+            prevX[slot] = prevX[last];
+            prevY[slot] = prevY[last];
+            dirX[slot] = dirX[last];
+            dirY[slot] = dirY[last];
+            speed[slot] = speed[last];
+            width[slot] = width[last];
+            height[slot] = height[last];
+            health[slot] = health[last];
+            invincibleEndTime[slot] = invincibleEndTime[last];
+            demons[slot].setDataSlot(slot);
+        }
+        demons[last] = null;
+        size--;
+    }
+
+    /**
+     * Get the number of demons.
+     * @return Number of demons.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the demon in a slot.
+     * @param slot Slot of the demon.
+     * @return Demon in the slot.
+     */
+    public Demon getDemon(int slot) {
+        return demons[slot];
+    }
+
+    /**
+     * Get the x positions.
+     */
+    public double[] getX() {
+        return x;
+    }
+
+    /**
+     * Get the y positions.
+     */
+    public double[] getY() {
+        return y;
+    }
+
+    /**
+     * Get the previous x positions.
+     */
+    public double[] getPrevX() {
+        return prevX;
+    }
+
+    /**
+     * Get the previous y positions.
+     */
+    public double[] getPrevY() {
+        return prevY;
+    }
+
+    /**
+     * Get the x components of the directions.
+     */
+    public double[] getDirX() {
+        return dirX;
+    }
+
+    /**
+     * Get the y components of the directions.
+     */
+    public double[] getDirY() {
+        return dirY;
+    }
+
+    /**
+     * Get the speeds.
+     */
+    public double[] getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Get the widths of the demons' rectangles.
+     */
+    public double[] getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the heights of the demons' rectangles.
+     */
+    public double[] getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the health points.
+     */
+    public int[] getHealth() {
+        return health;
+    }
+
+    /**
+     * Get the simulation times at which invincibility ends.
+     */
+    public long[] getInvincibleEndTime() {
+        return invincibleEndTime;
+    }
+}
@@ -0,0 +1,129 @@
+import bagel.util.*;
+import java.util.*;
+
+/**
+ * DemonKinematics class moves every demon in one batch over the primitive arrays of DemonData, and tests the results
+ * against the level boundary and the occupancy grids of stationary objects in bulk. The loops are kept branch-free
+ * where possible so the JIT compiler can vectorise them. Each step performs exactly the same floating point operations
+ * as MovingObject.move and Boundary.contains, so the results are bit-identical to moving one demon at a time.
+ */
+public class DemonKinematics {
+
+    private boolean[] blocked;
+    private boolean[] nearStatic;
+
+    /**
+     * Constructor for DemonKinematics class.
+     */
+    public DemonKinematics() {
+        this.blocked = new boolean[0];
+        this.nearStatic = new boolean[0];
+    }
+
+    /**
+     * Make sure the scratch arrays can hold the given number of demons.
+     * @param count Number of demons.
+     */
+    public void ensureCapacity(int count) {
+        if (blocked.length < count) {
+            blocked = Arrays.copyOf(blocked, count);
+            nearStatic = Arrays.copyOf(nearStatic, count);
+        }
+    }
+
+    /**
+     * Get the flags of which demons were blocked by the last call to testBlocked.
+     */
+    public boolean[] getBlocked() {
+        return blocked;
+    }
+
+    /**
+     * Get the flags of which demons were near a stationary object in the last call to testBlocked, and so need an
+     * exact collision check.
+     */
+    public boolean[] getNearStatic() {
+        return nearStatic;
+    }
+
+    /**
+     * Advance every demon by one step in its direction.
+     * @param x X positions.
+     * @param y Y positions.
+     * @param prevX Previous x positions, overwritten with the current x positions.
+     * @param prevY Previous y positions, overwritten with the current y positions.
+     * @param dirX X components of the directions.
+     * @param dirY Y components of the directions.
+     * @param speed Speeds.
+     * @param count Number of demons.
+     */
+    public static void advance(double[] x, double[] y, double[] prevX, double[] prevY,
+                               double[] dirX, double[] dirY, double[] speed, int count) {
+        System.arraycopy(x, 0, prevX, 0, count);
+        System.arraycopy(y, 0, prevY, 0, count);
+        for (int i = 0; i < count; i++) {
+            x[i] = x[i] + dirX[i] * speed[i];
+        }
+        for (int i = 0; i < count; i++) {
+            y[i] = y[i] + dirY[i] * speed[i];
+        }
+    }
+
+    /**
+     * Reverse and advance every demon flagged in a mask.
+     * @param x X positions.
+     * @param y Y positions.
+     * @param prevX Previous x positions, overwritten for flagged demons.
+     * @param prevY Previous y positions, overwritten for flagged demons.
+     * @param dirX X components of the directions, reversed for flagged demons.
+     * @param dirY Y components of the directions, reversed for flagged demons.
+     * @param speed Speeds.
+     * @param mask Flags of which demons to reverse.
+     * @param count Number of demons.
+     */
+    public static void reverseAndAdvance(double[] x, double[] y, double[] prevX, double[] prevY,
+                                         double[] dirX, double[] dirY, double[] speed, boolean[] mask, int count) {
+        for (int i = 0; i < count; i++) {
+            if (mask[i]) {
+                dirX[i] = dirX[i] * -1;
+                dirY[i] = dirY[i] * -1;
+                prevX[i] = x[i];
+                prevY[i] = y[i];
+                x[i] = x[i] + dirX[i] * speed[i];
+                y[i] = y[i] + dirY[i] * speed[i];
+            }
+        }
+    }
+
+    /**
+     * Flag the demons that are outside the boundary as blocked, and the demons whose rectangles touch an occupied
+     * tile of any of the grids as near a stationary object. Demons near a stationary object still need an exact
+     * collision check before they can be considered blocked.
+     * @param data Demon storage.
+     * @param boundary Boundary of the level.
+     * @param grids Occupancy grids of the stationary objects.
+     */
+    public void testBlocked(DemonData data, Boundary boundary, OccupancyGrid... grids) {
+        int count = data.size();
+        ensureCapacity(count);
+        double[] x = data.getX();
+        double[] y = data.getY();
+        double[] width = data.getWidth();
+        double[] height = data.getHeight();
+
+        // same comparisons as Boundary.contains on the demon's top left corner
+        Point topLeft = boundary.getTopLeft();
+        Point bottomRight = boundary.getBottomRight();
+        for (int i = 0; i < count; i++) {
+            blocked[i] = !(x[i] >= topLeft.x & x[i] <= bottomRight.x & y[i] >= topLeft.y & y[i] <= bottomRight.y);
+        }
+
+        for (int i = 0; i < count; i++) {
+            boolean near = false;
+            for (OccupancyGrid grid : grids) {
+                near |= grid.isOccupied(x[i], y[i], x[i] + width[i], y[i] + height[i]);
+            }
+            nearStatic[i] = near;
+        }
+    }
+}
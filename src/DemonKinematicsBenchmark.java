@@ -0,0 +1,255 @@
+import bagel.util.*;
+import java.util.*;
+
+/**
+ * DemonKinematicsBenchmark compares moving demons one at a time through bagel's Point and Vector2, the way
+ * MovingObject.move does, against moving them in one batch with DemonKinematics. It then compares the whole of a
+ * demon's move, with demons turning back at the boundary and the barriers, one at a time through Boundary.contains and
+ * rectangle intersects against moving them with advance, testBlocked and reverseAndAdvance as Level.moveDemons does.
+ * It checks that both ways give bit-identical positions, directions and blocked flags. Run the main method; it does
+ * not need a window.
+ */
+public class DemonKinematicsBenchmark {
+
+    private static final int DEMONS = 10000;
+    private static final int WARMUP_TICKS = 2000;
+    private static final int TICKS = 2000;
+    private static final int ROUNDS = 7;
+    private static final int BARRIERS = 16;
+    private static final String BARRIER_IMAGE = "res/wall.png";
+    private static final Point BOUNDARY_TOP_LEFT = new Point(0, 0);
+    private static final Point BOUNDARY_BOTTOM_RIGHT = new Point(1024, 768);
+    private static final long SEED = 20003;
+    private static final Vector2[] DIRECTIONS = {Vector2.left, Vector2.right, Vector2.up, Vector2.down};
+    private static final String RESULT = "%s: median %.2f, best %.2f ns per demon per tick over %d rounds";
+    private static final String SPEEDUP = "Speedup: %.2fx median, %.2fx best";
+    private static final String MISMATCH = "Batch kernel diverged from per-demon movement at demon %d";
+    private static final String BLOCKED_MISMATCH = "Batch blocked test diverged from per-demon movement at demon %d";
+
+    private final double[] x = new double[DEMONS];
+    private final double[] y = new double[DEMONS];
+    private final double[] prevX = new double[DEMONS];
+    private final double[] prevY = new double[DEMONS];
+    private final double[] dirX = new double[DEMONS];
+    private final double[] dirY = new double[DEMONS];
+    private final double[] speed = new double[DEMONS];
+    private final Point[] positions = new Point[DEMONS];
+    private final Point[] prevPositions = new Point[DEMONS];
+    private final Vector2[] directions = new Vector2[DEMONS];
+
+    // demons that turn back at the boundary and the barriers, moved both ways from the same start
+    private final Boundary boundary = new Boundary(BOUNDARY_TOP_LEFT, BOUNDARY_BOTTOM_RIGHT);
+    private final ArrayList<Barrier> barriers = new ArrayList<>();
+    private final OccupancyGrid barrierGrid;
+    private final DemonData data = new DemonData();
+    private final DemonKinematics kinematics = new DemonKinematics();
+    private final Point[] blockedPositions = new Point[DEMONS];
+    private final Vector2[] blockedDirections = new Vector2[DEMONS];
+    private final boolean[] blocked = new boolean[DEMONS];
+
+    /**
+     * Constructor for DemonKinematicsBenchmark class. Both representations start from the same random demons, and
+     * the demons that turn back start from the same random demons and barriers.
+     */
+    public DemonKinematicsBenchmark() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < DEMONS; i++) {
+            x[i] = random.nextDouble() * 1024;
+            y[i] = random.nextDouble() * 768;
+            Vector2 direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+            dirX[i] = direction.x;
+            dirY[i] = direction.y;
+            speed[i] = 0.2 + random.nextDouble() * 0.5;
+            positions[i] = new Point(x[i], y[i]);
+            directions[i] = direction;
+        }
+
+        for (int i = 0; i < BARRIERS; i++) {
+            barriers.add(new Barrier(BARRIER_IMAGE, new Point(random.nextDouble() * BOUNDARY_BOTTOM_RIGHT.x,
+                random.nextDouble() * BOUNDARY_BOTTOM_RIGHT.y)));
+        }
+        barrierGrid = OccupancyGrid.bake(barriers);
+        for (int i = 0; i < DEMONS; i++) {
+            Point position = new Point(random.nextDouble() * BOUNDARY_BOTTOM_RIGHT.x,
+                random.nextDouble() * BOUNDARY_BOTTOM_RIGHT.y);
+            new Demon(position, 0.2 + random.nextDouble() * 0.5,
+                DIRECTIONS[random.nextInt(DIRECTIONS.length)]).attach(data);
+            blockedPositions[i] = new Point(data.getX()[i], data.getY()[i]);
+            blockedDirections[i] = new Vector2(data.getDirX()[i], data.getDirY()[i]);
+        }
+    }
+
+    /**
+     * The entry point for the benchmark.
+     */
+    public static void main(String[] args) {
+        DemonKinematicsBenchmark benchmark = new DemonKinematicsBenchmark();
+        benchmark.runObjects(WARMUP_TICKS);
+        benchmark.runBatch(WARMUP_TICKS);
+
+        // time each side several times, taking turns, as a single run varies too much from one to the next
+        double[] objectNanos = new double[ROUNDS];
+        double[] batchNanos = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            objectNanos[i] = time(() -> benchmark.runObjects(TICKS));
+            batchNanos[i] = time(() -> benchmark.runBatch(TICKS));
+        }
+        benchmark.verify();
+        report("Per-demon", "Batch", objectNanos, batchNanos);
+
+        benchmark.runObjectsBlocked(WARMUP_TICKS);
+        benchmark.runBatchBlocked(WARMUP_TICKS);
+        for (int i = 0; i < ROUNDS; i++) {
+            objectNanos[i] = time(() -> benchmark.runObjectsBlocked(TICKS));
+            batchNanos[i] = time(() -> benchmark.runBatchBlocked(TICKS));
+        }
+        benchmark.verifyBlocked();
+        report("Per-demon with blocking", "Batch with blocking", objectNanos, batchNanos);
+    }
+
+    /**
+     * Time one run of TICKS ticks.
+     * @param run Run to time.
+     * @return Time taken in nanoseconds per demon per tick.
+     */
+    private static double time(Runnable run) {
+        long start = System.nanoTime();
+        run.run();
+        return (double) (System.nanoTime() - start) / TICKS / DEMONS;
+    }
+
+    /**
+     * Print the median and best time of each side over the rounds, and the speedup of the batch side.
+     * @param objectName Name of the per-demon side.
+     * @param batchName Name of the batch side.
+     * @param objectNanos Time of each round of the per-demon side, sorted in place.
+     * @param batchNanos Time of each round of the batch side, sorted in place.
+     */
+    private static void report(String objectName, String batchName, double[] objectNanos, double[] batchNanos) {
+        Arrays.sort(objectNanos);
+        Arrays.sort(batchNanos);
+        double objectMedian = objectNanos[ROUNDS / 2];
+        double batchMedian = batchNanos[ROUNDS / 2];
+        System.out.println(String.format(RESULT, objectName, objectMedian, objectNanos[0], ROUNDS));
+        System.out.println(String.format(RESULT, batchName, batchMedian, batchNanos[0], ROUNDS));
+        System.out.println(String.format(SPEEDUP, objectMedian / batchMedian, objectNanos[0] / batchNanos[0]));
+    }
+
+    /**
+     * Move every demon one at a time, allocating points and vectors the way MovingObject.move does.
+     * @param ticks Number of ticks to run.
+     */
+    private void runObjects(int ticks) {
+        for (int t = 0; t < ticks; t++) {
+            for (int i = 0; i < DEMONS; i++) {
+                prevPositions[i] = positions[i];
+                positions[i] = positions[i].asVector().add(directions[i].mul(speed[i])).asPoint();
+            }
+        }
+    }
+
+    /**
+     * Move every demon in one batch over the primitive arrays.
+     * @param ticks Number of ticks to run.
+     */
+    private void runBatch(int ticks) {
+        for (int t = 0; t < ticks; t++) {
+            DemonKinematics.advance(x, y, prevX, prevY, dirX, dirY, speed, DEMONS);
+        }
+    }
+
+    /**
+     * Check that both representations ended up at bit-identical positions.
+     */
+    private void verify() {
+        for (int i = 0; i < DEMONS; i++) {
+            if (!isIdentical(positions[i].x, x[i]) || !isIdentical(positions[i].y, y[i])) {
+                throw new IllegalStateException(String.format(MISMATCH, i));
+            }
+        }
+    }
+
+    /**
+     * Move every demon one at a time and turn back the ones outside the boundary or touching a barrier, the way
+     * Level.moveDemons did before the batch kernels: Boundary.contains on the top left corner, a rectangle intersect
+     * against every barrier, then reversing the direction and moving again.
+     * @param ticks Number of ticks to run.
+     */
+    private void runObjectsBlocked(int ticks) {
+        double[] speed = data.getSpeed();
+        double[] width = data.getWidth();
+        double[] height = data.getHeight();
+        for (int t = 0; t < ticks; t++) {
+            for (int i = 0; i < DEMONS; i++) {
+                Point position = blockedPositions[i].asVector().add(blockedDirections[i].mul(speed[i])).asPoint();
+                Rectangle rectangle = new Rectangle(position, width[i], height[i]);
+                boolean hit = !boundary.contains(position);
+                for (int j = 0; j < barriers.size() && !hit; j++) {
+                    hit = barriers.get(j).getRectangle().intersects(rectangle);
+                }
+                if (hit) {
+                    blockedDirections[i] = blockedDirections[i].mul(-1);
+                    position = position.asVector().add(blockedDirections[i].mul(speed[i])).asPoint();
+                }
+                blocked[i] = hit;
+                blockedPositions[i] = position;
+            }
+        }
+    }
+
+    /**
+     * Move every demon in one batch and turn back the blocked ones the way Level.moveDemons does: testBlocked against
+     * the boundary and the barrier grid, an exact intersect only for demons near a barrier, then reverseAndAdvance.
+     * @param ticks Number of ticks to run.
+     */
+    private void runBatchBlocked(int ticks) {
+        double[] x = data.getX();
+        double[] y = data.getY();
+        double[] width = data.getWidth();
+        double[] height = data.getHeight();
+        for (int t = 0; t < ticks; t++) {
+            DemonKinematics.advance(x, y, data.getPrevX(), data.getPrevY(), data.getDirX(), data.getDirY(),
+                                    data.getSpeed(), DEMONS);
+            kinematics.testBlocked(data, boundary, barrierGrid);
+            boolean[] batchBlocked = kinematics.getBlocked();
+            boolean[] nearStatic = kinematics.getNearStatic();
+            for (int i = 0; i < DEMONS; i++) {
+                if (!batchBlocked[i] && nearStatic[i]) {
+                    Rectangle rectangle = new Rectangle(new Point(x[i], y[i]), width[i], height[i]);
+                    for (int j = 0; j < barriers.size() && !batchBlocked[i]; j++) {
+                        batchBlocked[i] = barriers.get(j).getRectangle().intersects(rectangle);
+                    }
+                }
+            }
+            DemonKinematics.reverseAndAdvance(x, y, data.getPrevX(), data.getPrevY(), data.getDirX(),
+                                              data.getDirY(), data.getSpeed(), batchBlocked, DEMONS);
+        }
+    }
+
+    /**
+     * Check that both ways of turning demons back ended up with bit-identical positions and directions, and blocked
+     * the same demons on the last tick.
+     */
+    private void verifyBlocked() {
+        boolean[] batchBlocked = kinematics.getBlocked();
+        for (int i = 0; i < DEMONS; i++) {
+            if (!isIdentical(blockedPositions[i].x, data.getX()[i])
+                || !isIdentical(blockedPositions[i].y, data.getY()[i])
+                || !isIdentical(blockedDirections[i].x, data.getDirX()[i])
+                || !isIdentical(blockedDirections[i].y, data.getDirY()[i])
+                || blocked[i] != batchBlocked[i]) {
+                throw new IllegalStateException(String.format(BLOCKED_MISMATCH, i));
+            }
+        }
+    }
+
+    /**
+     * Check if two doubles have the same bits.
+     * @param a First double.
+     * @param b Second double.
+     * @return True if the doubles are bit-identical, false otherwise.
+     */
+    private static boolean isIdentical(double a, double b) {
+        return Double.doubleToRawLongBits(a) == Double.doubleToRawLongBits(b);
+    }
+}
@@ -0,0 +1,159 @@
+import bagel.util.*;
+import java.util.*;
+
+/**
+ * DemonSpawner class emits waves of demons into a level at runtime from a set of spawn points. Demons that die are
+ * returned to a pool and respawned by later waves, so ramping up the number of demons does not construct new objects
+ * once the pool is warm.
+ */
+public class DemonSpawner {
+
+    // console messages
+    private static final String WAVE_SPAWNED = "Spawned wave of %d demons, %d demons alive";
+
+    private final EntityRegistry registry;
+    private final ArrayList<Point> spawnPoints;
+    private final ArrayDeque<Demon> demonPool;
+    private final ArrayDeque<Navec> navecPool;
+    private int nextSpawnPoint;
+
+    /**
+     * Constructor for DemonSpawner class.
+     * @param registry Entity registry the demons are spawned into.
+     */
+    public DemonSpawner(EntityRegistry registry) {
+        this.registry = registry;
+        this.spawnPoints = new ArrayList<>();
+        this.demonPool = new ArrayDeque<>();
+        this.navecPool = new ArrayDeque<>();
+        this.nextSpawnPoint = 0;
+    }
+
+    /**
+     * Set the spawn points used by the spawner. Waves cycle through the spawn points in order.
+     * @param spawnPoints Positions of the spawn points.
+     */
+    public void setSpawnPoints(List<Point> spawnPoints) {
+        this.spawnPoints.clear();
+        this.spawnPoints.addAll(spawnPoints);
+        this.nextSpawnPoint = 0;
+    }
+
+    /**
+     * Add the sprites of the demons and Navec the spawner may spawn to a collection, so they are loaded with the
+     * level rather than when the first wave appears. A spawner with no spawn points spawns nothing.
+     * @param sprites Collection to add the sprites to.
+     */
+    public void collectSprites(Collection<Sprite> sprites) {
+        if (spawnPoints.isEmpty()) {
+            return;
+        }
+        Demon.collectDefaultSprites(sprites);
+        Navec.collectNavecSprites(sprites);
+    }
+
+    /**
+     * Construct demons ahead of time so that later waves can be served from the pool.
+     * @param count Number of demons to add to the pool.
+     */
+    public void reserve(int count) {
+        Point origin = new Point(0, 0);
+        for (int i = 0; i < count; i++) {
+            demonPool.push(new Demon(origin, Demon.PASSIVE_SPEED, Vector2.right));
+        }
+    }
+
+    /**
+     * Spawn a wave of demons, each with a random speed, direction and facing.
+     * @param count Number of demons to spawn.
+     */
+    public void spawnWave(int count) {
+        if (spawnPoints.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            Point position = nextSpawnPoint();
+            Demon demon = demonPool.isEmpty()
+                ? new Demon(position, Demon.PASSIVE_SPEED, Vector2.right)
+                : demonPool.pop();
+            demon.respawn(position, ShadowDimension.randomDemonSpeed(), ShadowDimension.randomDirection());
+            ShadowDimension.randomFace(demon);
+            spawn(demon);
+        }
+        GameContext.current().log(String.format(WAVE_SPAWNED, count, registry.getDemons().size()));
+    }
+
+    /**
+     * Spawn Navec at the next spawn point.
+     */
+    public void spawnNavec() {
+        if (spawnPoints.isEmpty()) {
+            return;
+        }
+        Point position = nextSpawnPoint();
+        Navec navec = navecPool.isEmpty()
+            ? new Navec(position, Demon.PASSIVE_SPEED, Vector2.right)
+            : navecPool.pop();
+        navec.respawn(position, ShadowDimension.randomAggressiveSpeed(), ShadowDimension.randomDirection());
+        spawn(navec);
+    }
+
+    /**
+     * Take a demon of the given layer from its pool, or construct one if the pool is empty, so that it can be restored
+     * from a replay keyframe. The demon is not added to the level.
+     * @param layer Layer of the demon, either Layer.DEMON or Layer.NAVEC.
+     * @return Demon taken.
+     */
+    public Demon take(int layer) {
+        Point origin = new Point(0, 0);
+        if (layer == Layer.NAVEC) {
+            return navecPool.isEmpty() ? new Navec(origin, Demon.PASSIVE_SPEED, Vector2.right) : navecPool.pop();
+        }
+        return demonPool.isEmpty() ? new Demon(origin, Demon.PASSIVE_SPEED, Vector2.right) : demonPool.pop();
+    }
+
+    /**
+     * Get the index of the spawn point the next demon spawns at.
+     */
+    public int getNextSpawnPoint() {
+        return nextSpawnPoint;
+    }
+
+    /**
+     * Set the index of the spawn point the next demon spawns at.
+     */
+    public void setNextSpawnPoint(int nextSpawnPoint) {
+        this.nextSpawnPoint = nextSpawnPoint;
+    }
+
+    /**
+     * Return a demon that has been removed from the level to the pool.
+     * @param demon Demon to return.
+     */
+    public void release(Demon demon) {
+        if (demon.getLayer() == Layer.NAVEC) {
+            navecPool.push((Navec) demon);
+        } else {
+            demonPool.push(demon);
+        }
+    }
+
+    /**
+     * Add a respawned demon to the level at the current timescale.
+     * @param demon Demon to add.
+     */
+    private void spawn(Demon demon) {
+        demon.timescaleSpeed(Timescale.getTimescale());
+        registry.add(demon);
+    }
+
+    /**
+     * Get the next spawn point, cycling back to the first one after the last.
+     * @return Position of the spawn point.
+     */
+    private Point nextSpawnPoint() {
+        Point spawnPoint = spawnPoints.get(nextSpawnPoint);
+        nextSpawnPoint = (nextSpawnPoint + 1) % spawnPoints.size();
+        return spawnPoint;
+    }
+}
@@ -1,5 +1,6 @@
 import bagel.*;
 import bagel.util.*;
+import java.io.*;
 
 /**
  * Entity class which have features that are common to all entities in the game such as health points and damage points.
@@ -31,6 +32,11 @@ public abstract class Entity extends MovingObject {
     private String name;
     private int state;
     private Timer invincibleTimer;
+    private HealthBar healthBar;
+
+    // term of the session's state hash, if the entity is in a level
+    private StateHash stateHash;
+    private long stateTerm;
 
     /**
      * Constructor for Entity class.
@@ -41,19 +47,133 @@ public abstract class Entity extends MovingObject {
      * @param damagePoints Damage points of the entity.
      * @param name Name of the entity.
      */
-    public Entity(Image[] images, Point position, double speed, int health, int damagePoints, String name) {
+    public Entity(Sprite[] images, Point position, double speed, int health, int damagePoints, String name) {
         super(images[IMG_LEFT], images[IMG_RIGHT], position, speed);
         this.health = health;
         this.maxHealth = health;
         this.damagePoints = damagePoints;
         this.name = name;
         this.state = IDLE;
+        this.healthBar = null;
+    }
+
+    /**
+     * Reset the entity to full health at a new position and speed, e.g. when it is reused from a pool. The
+     * invincibility timer is kept and expired rather than discarded.
+     * @param position Position of the entity.
+     * @param speed Speed of the entity before timescale is applied.
+     */
+    @Override
+    public void reset(Point position, double speed) {
+        super.reset(position, speed);
+        setHealth(maxHealth);
+        this.state = IDLE;
+        if (invincibleTimer != null) {
+            invincibleTimer.restart(ShadowDimension.getTime(), 0);
+        }
+        updateStateTerm();
+    }
+
+    /**
+     * Start adding the entity's term to a state hash, e.g. when it is added to a level. It is taken away from the
+     * hash it was in before.
+     * @param stateHash State hash of the session.
+     */
+    public void attachStateHash(StateHash stateHash) {
+        detachStateHash();
+        this.stateHash = stateHash;
+        this.stateTerm = computeStateTerm();
+        stateHash.add(stateTerm);
+    }
+
+    /**
+     * Take the entity's term away from its state hash, e.g. when it is removed from a level.
+     */
+    public void detachStateHash() {
+        if (stateHash != null) {
+            stateHash.remove(stateTerm);
+            stateHash = null;
+        }
+    }
+
+    /**
+     * Work out the entity's term of the state hash from its position, health, state and invincibility.
+     * @return Term of the state hash.
+     */
+    public long computeStateTerm() {
+        Point position = getPosition();
+        long term = StateHash.mix(getLayer());
+        term = StateHash.mix(term, Double.doubleToLongBits(position.x));
+        term = StateHash.mix(term, Double.doubleToLongBits(position.y));
+        term = StateHash.mix(term, health);
+        term = StateHash.mix(term, state);
+        return StateHash.mix(term, getInvincibleEndTime());
+    }
+
+    /**
+     * Update the entity's term of the state hash after one of its hashed fields has changed.
+     */
+    protected void updateStateTerm() {
+        if (stateHash != null) {
+            long term = computeStateTerm();
+            stateHash.replace(stateTerm, term);
+            stateTerm = term;
+        }
+    }
+
+    /**
+     * Get the simulation time the entity's invincibility ends at.
+     * @return Simulation time in nanoseconds, or 0 if the entity has never been invincible.
+     */
+    public long getInvincibleEndTime() {
+        return invincibleTimer == null ? 0 : invincibleTimer.getEndTime();
+    }
+
+    /**
+     * Set the position of the entity.
+     * @param position Top left position of the entity.
+     */
+    @Override
+    public void setPosition(Point position) {
+        super.setPosition(position);
+        updateStateTerm();
     }
 
     /**
      * Check the state of the entity.
      */
     public abstract void checkStates();
+
+    /**
+     * Write the state of the entity to a replay keyframe.
+     * @param out Stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        super.writeState(out);
+        out.writeInt(maxHealth);
+        out.writeInt(getHealth());
+        out.writeInt(damagePoints);
+        out.writeInt(state);
+        Timer.writeState(out, invincibleTimer);
+    }
+
+    /**
+     * Read the state of the entity written by writeState.
+     * @param in Stream to read from.
+     * @throws IOException If the stream could not be read.
+     */
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        super.readState(in);
+        this.maxHealth = in.readInt();
+        setHealth(in.readInt());
+        this.damagePoints = in.readInt();
+        this.state = in.readInt();
+        this.invincibleTimer = Timer.readState(in);
+        updateStateTerm();
+    }
     
     /**
      * Take damage to the entity.
@@ -101,6 +221,14 @@ public abstract class Entity extends MovingObject {
         return damagePoints;
     }
 
+    /**
+     * Set the entity's damage points.
+     * @param damagePoints Entity's damage points.
+     */
+    public void setDamagePoints(int damagePoints) {
+        this.damagePoints = damagePoints;
+    }
+
     /**
      * Get the entity's state.
      * @return Entity's state as an integer.
@@ -114,7 +242,12 @@ public abstract class Entity extends MovingObject {
      * @return Entity's state as an integer.
      */
     public void setState(int state) {
+        // a demon attacking every tick sets the same state again, which leaves the state hash as it is
+        if (this.state == state) {
+            return;
+        }
         this.state = state;
+        updateStateTerm();
     }
     
     /**
@@ -129,6 +262,7 @@ public abstract class Entity extends MovingObject {
         } else {
             this.health = health;
         }
+        updateStateTerm();
     }
 
     /**
@@ -136,7 +270,23 @@ public abstract class Entity extends MovingObject {
      * @return Health percentage of the entity.
      */
     public int getHealthPercentage() {
-        return (int) Math.round((double) health / maxHealth * 100);
+        return (int) Math.round((double) getHealth() / maxHealth * 100);
+    }
+
+    /**
+     * Get the health bar of the entity.
+     * @return Health bar of the entity, or null if it has not been drawn yet.
+     */
+    public HealthBar getHealthBar() {
+        return healthBar;
+    }
+
+    /**
+     * Set the health bar of the entity.
+     * @param healthBar Health bar of the entity.
+     */
+    public void setHealthBar(HealthBar healthBar) {
+        this.healthBar = healthBar;
     }
 
     /**
@@ -144,7 +294,7 @@ public abstract class Entity extends MovingObject {
      * @return True if the entity is dead, false otherwise.
      */
     public boolean isDead() {
-        return health <= 0;
+        return getHealth() <= 0;
     }
 
     /**
@@ -161,6 +311,7 @@ public abstract class Entity extends MovingObject {
      */
     public void setInvincibleTimer(Timer invincibleTimer) {
         this.invincibleTimer = invincibleTimer;
+        updateStateTerm();
     }
 
     /**
@@ -168,14 +319,19 @@ public abstract class Entity extends MovingObject {
      * @return True if the entity is invincible, false otherwise.
      */
     public boolean isInvincible() {
-        return invincibleTimer != null && !invincibleTimer.isFinished(ShadowDimension.getFrames());
+        return invincibleTimer != null && !invincibleTimer.isFinished(ShadowDimension.getTime());
     }
 
     /**
-     * Make the entity invincible.
+     * Make the entity invincible. The existing invincibility timer is reused if there is one.
      */
     public void makeInvincible() {
-        setInvincibleTimer(new Timer(ShadowDimension.getFrames(), INVINCIBLE_MS / MS_TO_SEC));
+        if (invincibleTimer == null) {
+            setInvincibleTimer(new Timer(ShadowDimension.getTime(), INVINCIBLE_MS / MS_TO_SEC));
+        } else {
+            invincibleTimer.restart(ShadowDimension.getTime(), INVINCIBLE_MS / MS_TO_SEC);
+            updateStateTerm();
+        }
     }
 
     /**
@@ -186,7 +342,7 @@ public abstract class Entity extends MovingObject {
     public static void printDamage(Attacker attacker, Entity target) {
         Entity A = (Entity) attacker;
         Entity B = (Entity) target;
-        System.out.println(String.format(
+        GameContext.current().log(String.format(
             DAMAGE_FORMAT,
             A.getName(),
             A.getDamagePoints(),
@@ -203,7 +359,7 @@ public abstract class Entity extends MovingObject {
      * @param player Player that takes damage.
      */
     public static void printDamage(Sinkhole sinkhole, Player player) {
-        System.out.println(String.format(
+        GameContext.current().log(String.format(
             DAMAGE_FORMAT,
             sinkhole.getClass().getSimpleName(),
             sinkhole.getDamagePoints(),
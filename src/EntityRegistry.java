@@ -0,0 +1,254 @@
+import bagel.util.*;
+import java.util.*;
+
+/**
+ * EntityRegistry class keeps the game objects of a level in per-archetype storage. Each collision layer has its own
+ * entity store and spatial hash, so a query over one layer only touches that layer's objects. Destroyed objects stay
+ * visible to every system until flush is called at the end of the tick.
+ */
+public class EntityRegistry {
+
+    // error messages
+    private static final String UNKNOWN_LAYER = "Game object has an unknown layer.";
+
+    private Player player;
+    private final EntityStore<Demon> demons;
+    private final DemonData demonData;
+    private final EntityStore<Barrier> barriers;
+    private final EntityStore<Sinkhole> sinkholes;
+    private final EntityStore<Fire> fires;
+    private final SpatialHash[] spatialHashes;
+    private final ArrayList<GameObject> destroyed;
+    private final StateHash stateHash;
+
+    /**
+     * Constructor for EntityRegistry class. The entities added to it are hashed into the state hash of the current
+     * session.
+     */
+    public EntityRegistry() {
+        this.stateHash = GameContext.current().getStateHash();
+        this.player = null;
+        this.demons = new EntityStore<>();
+        this.demonData = new DemonData();
+        this.barriers = new EntityStore<>();
+        this.sinkholes = new EntityStore<>();
+        this.fires = new EntityStore<>();
+        this.destroyed = new ArrayList<>();
+        this.spatialHashes = new SpatialHash[Layer.COUNT];
+        for (int i = 0; i < Layer.COUNT; i++) {
+            spatialHashes[i] = new SpatialHash();
+        }
+    }
+
+    /**
+     * Remove every game object from the registry.
+     */
+    public void clear() {
+        if (player != null) {
+            player.detachStateHash();
+        }
+        player = null;
+        for (Demon demon : demons) {
+            demon.detach();
+            demon.detachStateHash();
+        }
+        demons.clear();
+        barriers.clear();
+        sinkholes.clear();
+        fires.clear();
+        for (SpatialHash spatialHash : spatialHashes) {
+            spatialHash.clear();
+        }
+    }
+
+    /**
+     * Add a game object to the storage of its layer.
+     * @param gameObject Game object to add.
+     */
+    public void add(GameObject gameObject) {
+        switch (gameObject.getLayer()) {
+            case Layer.PLAYER:
+                // there is only ever one player, so it is not worth putting in a spatial hash
+                if (player != null) {
+                    player.detachStateHash();
+                }
+                player = (Player) gameObject;
+                player.attachStateHash(stateHash);
+                return;
+            case Layer.DEMON:
+            case Layer.NAVEC:
+                Demon demon = (Demon) gameObject;
+                demons.add(demon);
+                demon.attach(demonData);
+                demon.attachStateHash(stateHash);
+                break;
+            case Layer.BARRIER:
+                barriers.add((Barrier) gameObject);
+                break;
+            case Layer.SINKHOLE:
+                sinkholes.add((Sinkhole) gameObject);
+                break;
+            case Layer.FIRE:
+                // fire only lives for a single tick, so it is not worth putting in a spatial hash
+                fires.add((Fire) gameObject);
+                return;
+            default:
+                throw new IllegalArgumentException(UNKNOWN_LAYER);
+        }
+        getSpatialHash(gameObject.getLayer()).insert(gameObject);
+    }
+
+    /**
+     * Add all the given game objects.
+     * @param gameObjects Game objects to add.
+     */
+    public void addAll(GameObject[] gameObjects) {
+        for (GameObject gameObject : gameObjects) {
+            add(gameObject);
+        }
+    }
+
+    /**
+     * Queue a game object to be removed from the storage of its layer at the end of the tick.
+     * @param gameObject Game object to destroy.
+     */
+    public void destroy(GameObject gameObject) {
+        switch (gameObject.getLayer()) {
+            case Layer.DEMON:
+            case Layer.NAVEC:
+                demons.destroy(gameObject.getHandle());
+                break;
+            case Layer.BARRIER:
+                barriers.destroy(gameObject.getHandle());
+                break;
+            case Layer.SINKHOLE:
+                sinkholes.destroy(gameObject.getHandle());
+                break;
+            case Layer.FIRE:
+                fires.destroy(gameObject.getHandle());
+                break;
+            default:
+                throw new IllegalArgumentException(UNKNOWN_LAYER);
+        }
+    }
+
+    /**
+     * Remove every game object queued for destruction during this tick.
+     * @return Game objects that were removed. The list is reused by the next flush.
+     */
+    public List<GameObject> flush() {
+        destroyed.clear();
+        demons.flush(destroyed);
+        barriers.flush(destroyed);
+        sinkholes.flush(destroyed);
+        fires.flush(destroyed);
+        for (GameObject gameObject : destroyed) {
+            if (gameObject.getLayer() != Layer.FIRE) {
+                getSpatialHash(gameObject.getLayer()).remove(gameObject);
+            }
+            if ((gameObject.getLayer() & Layer.DEMONS) != 0) {
+                ((Demon) gameObject).detach();
+                ((Demon) gameObject).detachStateHash();
+            }
+        }
+        return destroyed;
+    }
+
+    /**
+     * Update the spatial hash of a game object after it has moved.
+     * @param gameObject Game object that may have moved.
+     */
+    public void moved(GameObject gameObject) {
+        int layer = gameObject.getLayer();
+        if (layer != Layer.PLAYER && layer != Layer.FIRE) {
+            getSpatialHash(layer).update(gameObject);
+        }
+    }
+
+    /**
+     * Remove all the fire shot during the previous tick.
+     */
+    public void clearFires() {
+        fires.clear();
+    }
+
+    /**
+     * Get the player.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the demons, including Navec.
+     */
+    public EntityStore<Demon> getDemons() {
+        return demons;
+    }
+
+    /**
+     * Get the structure-of-arrays storage of the demons.
+     */
+    public DemonData getDemonData() {
+        return demonData;
+    }
+
+    /**
+     * Get the barriers.
+     */
+    public EntityStore<Barrier> getBarriers() {
+        return barriers;
+    }
+
+    /**
+     * Get the sinkholes.
+     */
+    public EntityStore<Sinkhole> getSinkholes() {
+        return sinkholes;
+    }
+
+    /**
+     * Get the fire shot during this tick.
+     */
+    public EntityStore<Fire> getFires() {
+        return fires;
+    }
+
+    /**
+     * Get the spatial hash of a single layer.
+     * @param layer Layer bit.
+     * @return Spatial hash of the layer.
+     */
+    public SpatialHash getSpatialHash(int layer) {
+        return spatialHashes[Layer.indexOf(layer)];
+    }
+
+    /**
+     * Get the game objects in the given layers that may intersect an area.
+     * @param area Area to query.
+     * @param mask Layers to query.
+     * @param candidates List the candidates are added to.
+     */
+    public void query(Rectangle area, int mask, ArrayList<GameObject> candidates) {
+        for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            getSpatialHash(Integer.lowestOneBit(remaining)).query(area, candidates);
+        }
+    }
+
+    /**
+     * Check if no cell overlapping an area in the given layers has been modified since the given versions.
+     * @param area Area to check.
+     * @param mask Layers to check.
+     * @param versions Versions of each layer to compare against, indexed by layer index.
+     * @return True if the area is unchanged, false otherwise.
+     */
+    public boolean isUnchangedSince(Rectangle area, int mask, long[] versions) {
+        for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            int layer = Integer.lowestOneBit(remaining);
+            if (!getSpatialHash(layer).isUnchangedSince(area, versions[Layer.indexOf(layer)])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,224 @@
+import java.util.*;
+
+/**
+ * EntityStore class keeps game objects densely packed in an array so they can be iterated without gaps. Each object is
+ * given a generational handle that stays valid while it is alive, even as other objects are removed around it.
+ * Objects are not removed straight away; they are queued for destruction and removed in constant time by swapping the
+ * last object into their place when the queue is flushed at the end of a tick.
+ * @param <T> Type of game object stored.
+ */
+public class EntityStore<T extends GameObject> implements Iterable<T> {
+
+    /**
+     * Handle of a game object that is not in any store.
+     */
+    public static final int NO_HANDLE = -1;
+
+    // handles are split into a slot index and a generation that is bumped every time the slot is reused
+    private static final int SLOT_BITS = 20;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (Integer.SIZE - 1 - SLOT_BITS)) - 1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // error messages
+    private static final String STORE_FULL = "Entity store is full.";
+
+    private T[] dense;
+    private int[] denseToSlot;
+    private int[] slotToDense;
+    private int[] generations;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+    private int size;
+    private int[] pending;
+    private int pendingCount;
+
+    /**
+     * Constructor for EntityStore class.
+     */
+    @SuppressWarnings("unchecked")
+    public EntityStore() {
+        this.dense = (T[]) new GameObject[DEFAULT_CAPACITY];
+        this.denseToSlot = new int[DEFAULT_CAPACITY];
+        this.slotToDense = new int[DEFAULT_CAPACITY];
+        this.generations = new int[DEFAULT_CAPACITY];
+        this.freeSlots = new int[DEFAULT_CAPACITY];
+        this.pending = new int[DEFAULT_CAPACITY];
+        this.freeCount = 0;
+        this.slotCount = 0;
+        this.size = 0;
+        this.pendingCount = 0;
+    }
+
+    /**
+     * Add a game object to the store and give it a handle.
+     * @param gameObject Game object to add.
+     * @return Handle of the game object.
+     */
+    public int add(T gameObject) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount > SLOT_MASK) {
+                throw new IllegalStateException(STORE_FULL);
+            }
+            slot = slotCount++;
+            if (slot == slotToDense.length) {
+                slotToDense = Arrays.copyOf(slotToDense, slot * 2);
+                generations = Arrays.copyOf(generations, slot * 2);
+            }
+        }
+        if (size == dense.length) {
+            dense = Arrays.copyOf(dense, size * 2);
+            denseToSlot = Arrays.copyOf(denseToSlot, size * 2);
+        }
+
+        dense[size] = gameObject;
+        denseToSlot[size] = slot;
+        slotToDense[slot] = size;
+        size++;
+
+        int handle = (generations[slot] << SLOT_BITS) | slot;
+        gameObject.setHandle(handle);
+        return handle;
+    }
+
+    /**
+     * Get the game object with the given handle.
+     * @param handle Handle of the game object.
+     * @return Game object, or null if the handle is no longer alive.
+     */
+    public T get(int handle) {
+        if (!isAlive(handle)) {
+            return null;
+        }
+        return dense[slotToDense[handle & SLOT_MASK]];
+    }
+
+    /**
+     * Check if a handle refers to a game object that is still in the store.
+     * @param handle Handle to check.
+     * @return True if the handle is alive, false otherwise.
+     */
+    public boolean isAlive(int handle) {
+        if (handle < 0) {
+            return false;
+        }
+        int slot = handle & SLOT_MASK;
+        return slot < slotCount && generations[slot] == (handle >>> SLOT_BITS);
+    }
+
+    /**
+     * Get the game object at a dense index, for iterating the store.
+     * @param index Index from 0 to size() - 1.
+     * @return Game object at the index.
+     */
+    public T getAt(int index) {
+        return dense[index];
+    }
+
+    /**
+     * Get the number of game objects in the store, including those queued for destruction.
+     * @return Number of game objects.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Queue a game object to be removed when the store is next flushed. Destroying the same object twice, or an
+     * object no longer in the store, has no effect.
+     * @param handle Handle of the game object.
+     */
+    public void destroy(int handle) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = handle;
+    }
+
+    /**
+     * Remove every game object queued for destruction. Each removal swaps the last object into the freed position.
+     * @param destroyed List the removed game objects are added to, or null if they are not needed.
+     */
+    public void flush(List<? super T> destroyed) {
+        for (int i = 0; i < pendingCount; i++) {
+            int handle = pending[i];
+            if (!isAlive(handle)) {
+                continue;
+            }
+            int slot = handle & SLOT_MASK;
+            int index = slotToDense[slot];
+            T gameObject = dense[index];
+
+            // swap the last object into the freed position
+            int last = size - 1;
+            dense[index] = dense[last];
+            denseToSlot[index] = denseToSlot[last];
+            slotToDense[denseToSlot[index]] = index;
+            dense[last] = null;
+            size--;
+
+            // retire the slot so stale handles no longer resolve
+            generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+
+            gameObject.setHandle(NO_HANDLE);
+            if (destroyed != null) {
+                destroyed.add(gameObject);
+            }
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * Remove every game object immediately and invalidate all handles.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            dense[i].setHandle(NO_HANDLE);
+            dense[i] = null;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+        }
+        freeCount = 0;
+        for (int slot = slotCount - 1; slot >= 0; slot--) {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+        size = 0;
+        pendingCount = 0;
+    }
+
+    /**
+     * Iterate over the game objects in dense order.
+     * @return Iterator over the game objects.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public T next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return dense[index++];
+            }
+        };
+    }
+}
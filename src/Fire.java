@@ -9,22 +9,40 @@ public class Fire extends GameObject implements Attacker {
     private DrawOptions options;
     private int damagePoints;
     private final Demon fromDemon;
+    private double x;
+    private double y;
+    private boolean moved;
 
     private static final String ATTACK_MESSAGE = "Fire dealt damage";
 
+    // distance in pixels within which fire is checked against a target's rectangle
+    private static final double NEAR_MARGIN = 1;
+
     /**
      * Constructor for Fire class.
      * @param demon Demon that fired the fire.
      * @param image Image of the fire.
      * @param position Position of the fire.
-     * @param options Draw options of the fire, which determines the rotation of the fire.
+     * @param options Draw options of the fire, made by its image, which determine the rotation of the fire.
      * @param damagePoints Damage points of the fire.
      */
-    public Fire(Demon demon, Image image, Point position, DrawOptions options, int damagePoints) {
+    public Fire(Demon demon, Sprite image, Point position, DrawOptions options, int damagePoints) {
         super(image, position);
         this.options = options;
         this.damagePoints = damagePoints;
         this.fromDemon = demon;
+        this.x = position.x;
+        this.y = position.y;
+        this.moved = false;
+    }
+
+    /**
+     * Get the collision layer of the fire.
+     * @return Collision layer bit.
+     */
+    @Override
+    public int getLayer() {
+        return Layer.FIRE;
     }
 
     /**
@@ -35,12 +53,103 @@ public class Fire extends GameObject implements Attacker {
         return damagePoints;
     }
 
+    /**
+     * Set the damage points of the fire.
+     * @param damagePoints Damage points of the fire.
+     */
+    public void setDamagePoints(int damagePoints) {
+        this.damagePoints = damagePoints;
+    }
+
+    /**
+     * Set the draw options of the fire.
+     * @param options Draw options of the fire, made by its image, which determine the rotation of the fire.
+     */
+    public void setOptions(DrawOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Get the x coordinate of the top left corner of the fire.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Get the y coordinate of the top left corner of the fire.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Move the fire. Bagel's points cannot be changed, so rather than making a new one every tick the fire moves,
+     * its rectangle is only moved the next time it is read.
+     * @param x X coordinate of the top left corner.
+     * @param y Y coordinate of the top left corner.
+     */
+    public void moveTo(double x, double y) {
+        this.x = x;
+        this.y = y;
+        this.moved = true;
+    }
+
+    /**
+     * Set the position of the fire.
+     * @param position Position of the fire as a point.
+     */
+    @Override
+    public void setPosition(Point position) {
+        super.setPosition(position);
+        this.x = position.x;
+        this.y = position.y;
+        this.moved = false;
+    }
+
+    /**
+     * Get the position of the fire.
+     * @return Position of the fire as a point.
+     */
+    @Override
+    public Point getPosition() {
+        return getRectangle().topLeft();
+    }
+
+    /**
+     * Get the rectangle of the fire, moving it first if the fire has moved since it was last read.
+     * @return Rectangle of the fire.
+     */
+    @Override
+    public Rectangle getRectangle() {
+        if (moved) {
+            moved = false;
+            super.setPosition(new Point(x, y));
+        }
+        return super.getRectangle();
+    }
+
+    /**
+     * Check if the fire hits a target. The fire's rectangle is only read if the target is within a pixel of it, so
+     * fire that misses does not need its rectangle moved.
+     * @param target Target to check.
+     * @return True if the fire hits the target, false otherwise.
+     */
+    public boolean hits(GameObject target) {
+        Rectangle rectangle = target.getRectangle();
+        Sprite image = getImage();
+        if (x - NEAR_MARGIN > rectangle.right() || x + image.getWidth() + NEAR_MARGIN < rectangle.left()
+            || y - NEAR_MARGIN > rectangle.bottom() || y + image.getHeight() + NEAR_MARGIN < rectangle.top()) {
+            return false;
+        }
+        return target.collides(this);
+    }
+
     /**
      * Draw the fire to the screen.
      */
     public void draw() {
-        Point position = getPosition();
-        getImage().drawFromTopLeft(position.x, position.y, options);
+        Renderer.drawFromTopLeft(getImage(), x, y, options);
     }
 
     /**
@@ -48,7 +157,7 @@ public class Fire extends GameObject implements Attacker {
      */
     @Override
     public void attack() {
-        System.out.println(ATTACK_MESSAGE);
+        GameContext.current().log(ATTACK_MESSAGE);
     }
 
     /**
@@ -0,0 +1,119 @@
+import bagel.*;
+import bagel.util.*;
+
+/**
+ * FireEmitter class is the fire a demon shoots, kept by the demon and reused every tick it is in range of its target,
+ * instead of a new fire being made each time. Fire is shot from the corner of the demon nearest the target, and the
+ * corner and rotation are only worked out again when the demon moves or the target moves into another quadrant. A
+ * demon that moves only moves its fire's coordinates, and the fire's rectangle is only moved when something reads it,
+ * so shooting allocates nothing unless the fire comes near the target.
+ */
+public class FireEmitter {
+
+    // quadrants of the target, relative to the top left corner of the demon
+    private static final int NO_QUADRANT = -1;
+    private static final int TOP_LEFT = 0;
+    private static final int BOTTOM_LEFT = 1;
+    private static final int TOP_RIGHT = 2;
+    private static final int BOTTOM_RIGHT = 3;
+
+    // rotation of the fire in each quadrant
+    private static final double[] ROTATIONS = {
+        2 * Math.PI / 4 * 0,
+        2 * Math.PI / 4 * 3,
+        2 * Math.PI / 4 * 1,
+        2 * Math.PI / 4 * 2
+    };
+
+    private final Demon demon;
+    private final Sprite image;
+    private final DrawOptions[] rotations;
+    private Fire fire;
+    private int quadrant;
+    private double demonX;
+    private double demonY;
+
+    /**
+     * Constructor for FireEmitter class. The fire is made the first time the demon shoots, but the draw options for
+     * each quadrant are made now, by the image, so they select its region if it is drawn from the atlas.
+     * @param demon Demon that shoots the fire.
+     * @param image Image of the fire.
+     */
+    public FireEmitter(Demon demon, Sprite image) {
+        this.demon = demon;
+        this.image = image;
+        this.rotations = new DrawOptions[ROTATIONS.length];
+        for (int i = 0; i < ROTATIONS.length; i++) {
+            rotations[i] = image.createOptions().setRotation(ROTATIONS[i]);
+        }
+        this.fire = null;
+        this.quadrant = NO_QUADRANT;
+        this.demonX = Double.NaN;
+        this.demonY = Double.NaN;
+    }
+
+    /**
+     * Shoot fire at the target from the corner of the demon nearest it.
+     * @param target Target to shoot fire at.
+     * @return Fire shot by the demon, or null if the target is in no quadrant of the demon.
+     */
+    public Fire shootAt(GameObject target) {
+        Rectangle rectangle = demon.getRectangle();
+        Rectangle targetRectangle = target.getRectangle();
+        int quadrant = getQuadrant(targetRectangle.left(), targetRectangle.top(), rectangle.left(), rectangle.top());
+        if (quadrant == NO_QUADRANT) {
+            return null;
+        }
+
+        // only place the fire again if the demon has moved or the target is in another quadrant
+        if (fire == null || quadrant != this.quadrant || rectangle.left() != demonX || rectangle.top() != demonY) {
+            double x;
+            double y;
+            if (quadrant == TOP_LEFT) {
+                x = rectangle.left() - image.getWidth();
+                y = rectangle.top() - image.getHeight();
+            } else if (quadrant == BOTTOM_LEFT) {
+                x = rectangle.left() - image.getWidth();
+                y = rectangle.bottom();
+            } else if (quadrant == TOP_RIGHT) {
+                x = rectangle.right();
+                y = rectangle.top() - image.getHeight();
+            } else {
+                x = rectangle.right();
+                y = rectangle.bottom();
+            }
+            if (fire == null) {
+                fire = new Fire(demon, image, new Point(x, y), rotations[quadrant], demon.getDamagePoints());
+            } else {
+                fire.moveTo(x, y);
+                fire.setOptions(rotations[quadrant]);
+            }
+            this.quadrant = quadrant;
+            this.demonX = rectangle.left();
+            this.demonY = rectangle.top();
+        }
+        fire.setDamagePoints(demon.getDamagePoints());
+        return fire;
+    }
+
+    /**
+     * Get the quadrant a target is in, relative to the demon.
+     * @param targetX X coordinate of the top left corner of the target.
+     * @param targetY Y coordinate of the top left corner of the target.
+     * @param x X coordinate of the top left corner of the demon.
+     * @param y Y coordinate of the top left corner of the demon.
+     * @return Quadrant of the target, or NO_QUADRANT if the coordinates cannot be compared.
+     */
+    private static int getQuadrant(double targetX, double targetY, double x, double y) {
+        if (targetX <= x && targetY <= y) {
+            return TOP_LEFT;
+        } else if (targetX <= x && targetY > y) {
+            return BOTTOM_LEFT;
+        } else if (targetX > x && targetY <= y) {
+            return TOP_RIGHT;
+        } else if (targetX > x && targetY > y) {
+            return BOTTOM_RIGHT;
+        }
+        return NO_QUADRANT;
+    }
+}
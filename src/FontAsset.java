@@ -0,0 +1,96 @@
+import bagel.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * FontAsset class is a font that is only loaded when it is first used, so the game's fonts can be declared as
+ * constants without a graphics context. Fonts are shared by path and size through the AssetRegistry, so a font
+ * declared in several places is loaded once.
+ */
+public class FontAsset {
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final int id;
+    private final String path;
+    private final int size;
+    private volatile Font font;
+
+    /**
+     * Constructor for FontAsset class. Does not load the font. Use FontAsset.get instead, so the font is shared.
+     * @param path Path of the font file.
+     * @param size Size of the font in points.
+     */
+    FontAsset(String path, int size) {
+        this.id = NEXT_ID.getAndIncrement();
+        this.path = path;
+        this.size = size;
+        this.font = null;
+    }
+
+    /**
+     * Get the shared font for a font file and size, creating it the first time they are used.
+     * @param path Path of the font file.
+     * @param size Size of the font in points.
+     * @return Font of the file and size.
+     */
+    public static FontAsset get(String path, int size) {
+        return AssetRegistry.getFont(path, size);
+    }
+
+    /**
+     * Get the number identifying the font, unique among fonts. Strings are sorted by the id of their font.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the path of the font file.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the size of the font in points.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the font, loading it on the render thread the first time.
+     * @return Loaded font.
+     */
+    public Font getFont() {
+        Font loaded = font;
+        if (loaded == null) {
+            loaded = FramePipeline.onRenderThread(this::load);
+            font = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * Load the font, unless another thread has loaded it already. Must be called on the render thread.
+     * @return Loaded font.
+     */
+    private Font load() {
+        if (font != null) {
+            return font;
+        }
+        long start = System.nanoTime();
+        Font loaded = new Font(AssetPack.getFile(path), size);
+        AssetRegistry.recordLoad(System.nanoTime() - start);
+        return loaded;
+    }
+
+    /**
+     * Get the width of a string drawn in the font.
+     * @param text String to measure.
+     * @return Width of the string in pixels.
+     */
+    public double getWidth(String text) {
+        return getFont().getWidth(text);
+    }
+}
@@ -0,0 +1,253 @@
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * FramePipeline class runs the simulation on its own thread, one frame ahead of rendering. Each tick records its draw
+ * calls into the back buffer while the render thread replays the front buffer, which holds the last completed tick.
+ * Once both are done the buffers are swapped, so simulating frame N + 1 overlaps drawing frame N. Work that needs the
+ * render thread's graphics context, such as loading fonts, is handed back to the render thread while it waits. The
+ * simulation thread runs in the game context of the thread that creates the pipeline.
+ */
+public class FramePipeline {
+
+    // error messages
+    private static final String TICK_FAILED = "Simulation tick failed.";
+    private static final String INTERRUPTED = "Interrupted while waiting for the simulation.";
+    private static final String THREAD_NAME = "simulation";
+
+    private static volatile FramePipeline active = null;
+
+    private final Consumer<InputState> tick;
+    private final Runnable draw;
+    private final AtomicLong ticksRun;
+    private final ExecutorService simulation;
+    private final BlockingQueue<Runnable> renderTasks;
+    private final Runnable tickDone;
+    private volatile Thread simulationThread;
+    private RenderFrame front;
+    private RenderFrame back;
+    private Future<?> pending;
+    private InputState unconsumed;
+    private boolean enabled;
+    private volatile long tickBudget;
+
+    /**
+     * Constructor for FramePipeline class.
+     * @param tick Simulation tick, run as many times per frame as the clock is due, with that frame's input.
+     * @param draw Draws the state of the simulation, run once after the last tick of each frame.
+     * @param enabled True to run ticks on the simulation thread, false to run them on the render thread.
+     */
+    public FramePipeline(Consumer<InputState> tick, Runnable draw, boolean enabled) {
+        this.tick = tick;
+        this.draw = draw;
+        this.ticksRun = new AtomicLong();
+        GameContext context = GameContext.current();
+        this.simulation = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(() -> {
+                GameContext.bind(context);
+                runnable.run();
+            }, THREAD_NAME);
+            thread.setDaemon(true);
+            simulationThread = thread;
+            return thread;
+        });
+        this.renderTasks = new LinkedBlockingQueue<>();
+        this.tickDone = () -> { };
+        this.front = new RenderFrame();
+        this.back = new RenderFrame();
+        this.pending = null;
+        this.unconsumed = null;
+        this.enabled = enabled;
+        this.tickBudget = 0;
+        active = this;
+    }
+
+    /**
+     * Check if ticks run on the simulation thread.
+     * @return True if the pipeline is enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the time each frame may keep running ticks for once the ticks it is due have run.
+     * @return Time in nanoseconds, or 0 if frames only run the ticks they are due.
+     */
+    public long getTickBudget() {
+        return tickBudget;
+    }
+
+    /**
+     * Set the time each frame may keep running ticks for once the ticks it is due have run, to run the simulation
+     * as fast as it can.
+     * @param tickBudget Time in nanoseconds, or 0 to only run the ticks each frame is due.
+     */
+    public void setTickBudget(long tickBudget) {
+        this.tickBudget = tickBudget;
+    }
+
+    /**
+     * Get the last completed frame, which the render thread draws. Must be called on the render thread.
+     * @return Frame being drawn.
+     */
+    public RenderFrame getFrame() {
+        return front;
+    }
+
+    /**
+     * Get the number of ticks run since the pipeline was created.
+     * @return Number of ticks.
+     */
+    public long getTicksRun() {
+        return ticksRun.get();
+    }
+
+    /**
+     * Run one frame. Draws the last completed tick, interpolated by how far the clock is towards the next tick, and
+     * starts the ticks this frame is due while it draws. A frame that is due no ticks keeps its input, so key presses
+     * are seen by the next tick that runs. When the pipeline is disabled the ticks run before drawing instead.
+     * @param input Snapshot of this frame's input.
+     * @param ticks Number of ticks this frame is due.
+     * @param alpha Fraction of a tick the clock is past the last tick.
+     */
+    public void step(InputState input, int ticks, double alpha) {
+        InputState merged = unconsumed == null ? input : unconsumed.merge(input);
+        unconsumed = ticks == 0 ? merged : null;
+
+        if (!enabled) {
+            if (ticks > 0) {
+                record(back, merged, ticks);
+                swap();
+            }
+            front.replay(alpha);
+            return;
+        }
+
+        // the back buffer holds the last completed tick once the pending ticks finish
+        if (serviceRenderTasks(ticks > 0)) {
+            swap();
+        }
+
+        // simulate the next ticks while drawing the completed one
+        if (ticks > 0) {
+            RenderFrame recording = back;
+            pending = simulation.submit(() -> {
+                try {
+                    record(recording, merged, ticks);
+                } finally {
+                    renderTasks.add(tickDone);
+                }
+            });
+        }
+        front.replay(alpha);
+    }
+
+    /**
+     * Run a number of ticks, then more while the tick budget lasts, and record the state after the last one. Only the
+     * first tick sees the key presses.
+     * @param recording Frame to record into.
+     * @param input Snapshot of the input.
+     * @param ticks Number of ticks to run.
+     */
+    private void record(RenderFrame recording, InputState input, int ticks) {
+        long budget = tickBudget;
+        long start = budget > 0 ? System.nanoTime() : 0;
+        int run = 0;
+        while (run < ticks || (budget > 0 && System.nanoTime() - start < budget)) {
+            tick.accept(run == 0 ? input : input.held());
+            run++;
+        }
+        ticksRun.addAndGet(run);
+
+        recording.clear();
+        Renderer.setTarget(recording);
+        try {
+            draw.run();
+            recording.sort();
+        } finally {
+            Renderer.setTarget(null);
+        }
+    }
+
+    /**
+     * Swap the front and back buffers.
+     */
+    private void swap() {
+        RenderFrame completed = back;
+        back = front;
+        front = completed;
+    }
+
+    /**
+     * Wait for the pending ticks to finish and stop the simulation thread.
+     */
+    public void close() {
+        serviceRenderTasks(true);
+        simulation.shutdown();
+    }
+
+    /**
+     * Run work that needs the graphics context, such as loading a font. On the simulation thread, the work is
+     * handed to the render thread and this waits for the result; on any other thread it runs straight away.
+     * @param work Work to run.
+     * @param <T> Type of the result.
+     * @return Result of the work.
+     */
+    public static <T> T onRenderThread(Supplier<T> work) {
+        FramePipeline pipeline = active;
+        if (pipeline == null || Thread.currentThread() != pipeline.simulationThread) {
+            return work.get();
+        }
+        FutureTask<T> task = new FutureTask<>(work::get);
+        pipeline.renderTasks.add(task);
+        return join(task);
+    }
+
+    /**
+     * Run any work the pending ticks hand to the render thread, and check if they have finished.
+     * @param wait True to wait for the pending ticks to finish, false to return straight away if they have not.
+     * @return True if pending ticks finished during this call, false otherwise.
+     */
+    private boolean serviceRenderTasks(boolean wait) {
+        if (pending == null) {
+            return false;
+        }
+        try {
+            Runnable task;
+            while ((task = wait ? renderTasks.take() : renderTasks.poll()) != null) {
+                if (task == tickDone) {
+                    join(pending);
+                    pending = null;
+                    return true;
+                }
+                task.run();
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(INTERRUPTED, e);
+        }
+    }
+
+    /**
+     * Wait for a future and return its result, rethrowing any failure as an unchecked exception.
+     * @param future Future to wait for.
+     * @param <T> Type of the result.
+     * @return Result of the future.
+     */
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(TICK_FAILED, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(INTERRUPTED, e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * GameContext class holds the state of one game session that used to be shared by the whole program: the tick
+ * counter, the stage, the timescale and the random number generator. Each thread runs one session at a time and is
+ * bound to its context, so several headless sessions can run side by side. Threads that never bind a context share
+ * the default one, which is the session shown in the window.
+ */
+public class GameContext {
+
+    private static final GameContext DEFAULT = new GameContext(new Random(), false, true);
+    private static final ThreadLocal<GameContext> CURRENT = ThreadLocal.withInitial(() -> DEFAULT);
+
+    private Random random;
+    private final boolean headless;
+    private final boolean verbose;
+    private long ticks;
+    private int stage;
+    private int timescale;
+    private final StateHash stateHash;
+
+    /**
+     * Constructor for GameContext class.
+     * @param random Random number generator of the session.
+     * @param headless True if the session is never drawn, so no images or fonts need to be loaded.
+     * @param verbose True if the session prints its events to the console.
+     */
+    public GameContext(Random random, boolean headless, boolean verbose) {
+        this.random = random;
+        this.headless = headless;
+        this.verbose = verbose;
+        this.ticks = 0;
+        this.stage = Level.LEVEL0_STAGE;
+        this.timescale = Timescale.DEFAULT_TIMESCALE;
+        this.stateHash = new StateHash();
+        stateHash.add(stageTerm(stage));
+    }
+
+    /**
+     * Work out the stage's term of the state hash.
+     * @param stage Stage of the game.
+     * @return Term of the state hash.
+     */
+    private static long stageTerm(int stage) {
+        return StateHash.mix(Layer.COUNT + stage);
+    }
+
+    /**
+     * Get the context bound to the current thread.
+     * @return Context of the current thread.
+     */
+    public static GameContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind a context to the current thread.
+     * @param context Context to bind, or null to go back to the default context.
+     */
+    public static void bind(GameContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    /**
+     * Write the state of the session to a replay keyframe: the tick counter, stage, timescale and the state of the
+     * random number generator.
+     * @param out Stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeLong(ticks);
+        out.writeInt(stage);
+        out.writeInt(timescale);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+            objects.writeObject(random);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    /**
+     * Read the state of the session written by writeState.
+     * @param in Stream to read from.
+     * @throws IOException If the stream could not be read.
+     */
+    public void readState(DataInputStream in) throws IOException {
+        ticks = in.readLong();
+        setStage(in.readInt());
+        timescale = in.readInt();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            random = (Random) objects.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Get the random number generator of the session.
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Check if the session is headless.
+     * @return True if the session is never drawn, false otherwise.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Print a message to the console if the session is verbose.
+     * @param message Message to print.
+     */
+    public void log(String message) {
+        if (verbose) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Get the number of simulation ticks since the session started.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Set the number of simulation ticks since the session started.
+     * @param ticks Number of ticks.
+     */
+    public void setTicks(long ticks) {
+        this.ticks = ticks;
+    }
+
+    /**
+     * Get the simulation time of the current tick.
+     * @return Simulation time in nanoseconds.
+     */
+    public long getTime() {
+        return SimClock.timeOfTick(ticks);
+    }
+
+    /**
+     * Get the stage of the session.
+     */
+    public int getStage() {
+        return stage;
+    }
+
+    /**
+     * Set the stage of the session.
+     * @param stage Stage of the session.
+     */
+    public void setStage(int stage) {
+        stateHash.replace(stageTerm(this.stage), stageTerm(stage));
+        this.stage = stage;
+    }
+
+    /**
+     * Get the hash of the session's state, which covers the stage and every entity in a level.
+     */
+    public StateHash getStateHash() {
+        return stateHash;
+    }
+
+    /**
+     * Get the timescale of the session.
+     */
+    public int getTimescale() {
+        return timescale;
+    }
+
+    /**
+     * Set the timescale of the session.
+     * @param timescale Timescale of the session.
+     */
+    public void setTimescale(int timescale) {
+        this.timescale = timescale;
+    }
+}
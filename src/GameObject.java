@@ -10,25 +10,33 @@ public abstract class GameObject {
     // error message for point outside of boundary
     private static final String OUT_OF_BOUNDARY = "Position is outside of boundary";
 
-    private Image image;
+    private Sprite image;
     private Rectangle rectangle;
+    private int handle;
 
     /**
      * Constructor for GameObject class.
      * @param image Image of the game object.
      * @param position Position of the game object.
      */
-    public GameObject(Image image, Point position) {
+    public GameObject(Sprite image, Point position) {
         this.image = image;
         this.rectangle = deriveRectangle(position, this.image);
+        this.handle = EntityStore.NO_HANDLE;
     }
 
+    /**
+     * Get the collision layer of the game object.
+     * @return Collision layer bit, as defined in Layer.
+     */
+    public abstract int getLayer();
+
     /**
      * Draw the object to the screen.
      */
     public void draw() {
         Point position = getPosition();
-        image.drawFromTopLeft(position.x, position.y);
+        Renderer.drawFromTopLeft(image, position.x, position.y);
     }
 
     /**
@@ -49,12 +57,12 @@ public abstract class GameObject {
      * Draw the object to the screen given a boundary and draw options. If the object is outside the boundary,
      * an exception will be thrown.
      * @param boundary Boundary to draw the object in.
-     * @param options Draw options to draw the object with.
+     * @param options Draw options to draw the object with, made by the object's image.
      */
     public void draw(Boundary boundary, DrawOptions options) {
         Point position = getPosition();
         if (boundary.contains(position)) {
-            image.drawFromTopLeft(position.x, position.y, options);
+            Renderer.drawFromTopLeft(image, position.x, position.y, options);
         } else {
             throw new RuntimeException(OUT_OF_BOUNDARY);
         }
@@ -80,7 +88,7 @@ public abstract class GameObject {
      * Get the image of the game object.
      * @return Image of the game object.
      */
-    public Image getImage() {
+    public Sprite getImage() {
         return image;
     }
 
@@ -88,7 +96,7 @@ public abstract class GameObject {
      * Set the image of the game object, while also updating the rectangle.
      * @param image Image of the game object.
      */
-    public void setImage(Image image) {
+    public void setImage(Sprite image) {
         this.image = image;
         this.rectangle = deriveRectangle(getPosition(), this.image);
     }
@@ -109,24 +117,49 @@ public abstract class GameObject {
         this.rectangle = rectangle;
     }
 
+    /**
+     * Get the handle of the game object in its entity store.
+     * @return Handle of the game object, or EntityStore.NO_HANDLE if it is not in a store.
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * Set the handle of the game object. Only called by the entity store.
+     * @param handle Handle of the game object.
+     */
+    public void setHandle(int handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Add the sprites the game object may be drawn with to a collection, so they can be loaded with its level.
+     * @param sprites Collection to add the sprites to.
+     */
+    public void collectSprites(Collection<Sprite> sprites) {
+        sprites.add(image);
+    }
+
     /**
      * Derive the rectangle from the position and image.
      * @param position Position of the game object.
      * @param image Image of the game object.
      * @return Rectangle of the game object.
      */
-    private Rectangle deriveRectangle(Point position, Image image) {
+    private Rectangle deriveRectangle(Point position, Sprite image) {
         return new Rectangle(position, image.getWidth(), image.getHeight());
     }
 
     /**
-     * Check if the game object collides with another game object.
+     * Check if the game object collides with another game object in the given layers.
      * @param gameObjects Game objects to check collision with.
+     * @param mask Layers to check collision with.
      * @return True if the game object collides with another game object, false otherwise.
      */
-    public boolean collides(GameObject[] gameObjects, Class<?> type) {
+    public boolean collides(GameObject[] gameObjects, int mask) {
         for (GameObject gameObject : gameObjects) {
-            if (gameObject.getClass() == type && collides(gameObject)) {
+            if ((gameObject.getLayer() & mask) != 0 && collides(gameObject)) {
                 return true;
             }
         }
@@ -143,13 +176,14 @@ public abstract class GameObject {
     }
 
     /**
-     * Get the collided object from a given array of game objects.
+     * Get the collided object in the given layers from a given array of game objects.
      * @param gameObjects Array of game objects to check collision with.
+     * @param mask Layers to check collision with.
      * @return Collided game object, if any. Otherwise, null.
      */
-    public GameObject getCollidedObject(GameObject[] gameObjects, Class<?> type) {
+    public GameObject getCollidedObject(GameObject[] gameObjects, int mask) {
         for (GameObject gameObject : gameObjects) {
-            if (gameObject.getClass() == type && gameObject.getRectangle().intersects(this.getRectangle())) {
+            if ((gameObject.getLayer() & mask) != 0 && gameObject.getRectangle().intersects(this.getRectangle())) {
                 return gameObject;
             }
         }
@@ -157,14 +191,15 @@ public abstract class GameObject {
     }
 
     /**
-     * Get the collided objects from a given array of game objects.
+     * Get the collided objects in the given layers from a given array of game objects.
      * @param gameObjects Array of game objects to check collision with.
+     * @param mask Layers to check collision with.
      * @return Array of collided game objects, if any. Otherwise, null.
      */
-    public ArrayList<GameObject> getCollidedObjects(GameObject[] gameObjects, Class<?> type) {
+    public ArrayList<GameObject> getCollidedObjects(GameObject[] gameObjects, int mask) {
         ArrayList<GameObject> collidedObjects = new ArrayList<>();
         for (GameObject gameObject : gameObjects) {
-            if (gameObject.getClass() == type && gameObject.getRectangle().intersects(this.getRectangle())) {
+            if ((gameObject.getLayer() & mask) != 0 && gameObject.getRectangle().intersects(this.getRectangle())) {
                 collidedObjects.add(gameObject);
             }
         }
@@ -180,27 +215,4 @@ public abstract class GameObject {
     public static Player getPlayer(GameObject[] objects) {
         return (Player) objects[0];
     }
-
-    /**
-     * Add an object to the array of game objects.
-     * @param objects Array of game objects.
-     * @param gameObject Object to add.
-     */
-    public static GameObject[] addGameObject(GameObject[] objects, GameObject gameObject) {
-        ArrayList<GameObject> objectsList = new ArrayList<>(Arrays.asList(objects));
-        objectsList.add(gameObject);
-        return objectsList.toArray(new GameObject[objectsList.size()]);
-    }
-
-    /**
-     * Remove the object from the array of game objects.
-     * @param objects Array of game objects.
-     * @param gameObject Object to remove.
-     * @return Array of game objects with the object removed.
-     */
-    public static GameObject[] removeGameObject(GameObject[] objects, GameObject gameObject) {
-        ArrayList<GameObject> objectsList = new ArrayList<>(Arrays.asList(objects));
-        objectsList.remove(gameObject);
-        return objectsList.toArray(new GameObject[objectsList.size()]);
-    }
 }
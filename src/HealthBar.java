@@ -1,44 +1,99 @@
-import bagel.*;
 import bagel.util.*;
 
 /**
- * HealthBar class displays the health of the player or entity.
+ * HealthBar class displays the health of the player or entity. Each entity keeps its own health bar, which holds the
+ * laid-out text of the health percentage it last drew and only looks up a new one when the percentage changes.
  */
-public class HealthBar extends Message {
+public class HealthBar {
 
     // health percentage error message
     private static final String HEALTH_PERCENTAGE_ERROR = "Health percentage out of range";
     private static final String PERCENT = "%";
 
+    // health percentages of at least these are drawn in green or orange, and below them in red
+    private static final int GREEN_PERCENTAGE = 65;
+    private static final int ORANGE_PERCENTAGE = 35;
+    private static final int MAX_PERCENTAGE = 100;
+
+    // texts of every health percentage, so drawing a percentage does not build a string
+    private static final String[] PERCENTAGES = new String[MAX_PERCENTAGE + 1];
+    static {
+        for (int i = 0; i <= MAX_PERCENTAGE; i++) {
+            PERCENTAGES[i] = i + PERCENT;
+        }
+    }
+
+    // position of the player's health bar, and height of an entity's health bar above the entity
+    private static final double PLAYER_X = 20;
+    private static final double PLAYER_Y = 25;
+    private static final double ENTITY_OFFSET = 6;
+
+    private final FontAsset font;
+    private int percentage;
+    private TextRun run;
+
     /**
      * Constructor for HealthBar class.
      * @param font Font of the health bar.
-     * @param text Message of the health bar.
-     * @param position Position of the health bar.
      */
-    public HealthBar(Font font, String text, Point position) {
-        super(font, text, position);
+    public HealthBar(FontAsset font) {
+        this.font = font;
+        this.percentage = -1;
+        this.run = null;
     }
 
     /**
-     * Draw the health bar for the player.
-     * @param player Player object to draw the health bar for.
+     * Get the laid-out text of a health percentage, looking it up only if the percentage has changed since the last
+     * call.
+     * @param percentage Health percentage.
+     * @return Text of the health percentage.
      */
-    public static void drawHealthBar(Player player) {
-        int health = player.getHealthPercentage();
-        Message healthBar = new Message(FONT30, player.getHealthPercentage() + PERCENT, new Point(20, 25));
-        DrawOptions drawOptions = new DrawOptions();
+    public TextRun getRun(int percentage) {
+        if (percentage != this.percentage || run == null) {
+            run = TextRun.get(font, PERCENTAGES[percentage], getColour(percentage));
+            this.percentage = percentage;
+        }
+        return run;
+    }
 
-        if (65 <= health && health <= 100) {
-            drawOptions.setBlendColour(GREEN);
-        } else if (35 <= health && health < 65) {
-            drawOptions.setBlendColour(ORANGE);
-        } else if (0 <= health && health < 35) {
-            drawOptions.setBlendColour(RED);
+    /**
+     * Get the colour a health percentage is drawn in.
+     * @param health Health percentage.
+     * @return Colour of the health percentage.
+     */
+    private static Colour getColour(int health) {
+        if (GREEN_PERCENTAGE <= health && health <= MAX_PERCENTAGE) {
+            return Message.GREEN;
+        } else if (ORANGE_PERCENTAGE <= health && health < GREEN_PERCENTAGE) {
+            return Message.ORANGE;
+        } else if (0 <= health && health < ORANGE_PERCENTAGE) {
+            return Message.RED;
         } else {
             throw new RuntimeException(HEALTH_PERCENTAGE_ERROR);
         }
-        healthBar.draw(drawOptions);
+    }
+
+    /**
+     * Get the health bar of an entity, creating it the first time.
+     * @param entity Entity to get the health bar of.
+     * @param font Font of the health bar.
+     * @return Health bar of the entity.
+     */
+    private static HealthBar of(Entity entity, FontAsset font) {
+        HealthBar healthBar = entity.getHealthBar();
+        if (healthBar == null) {
+            healthBar = new HealthBar(font);
+            entity.setHealthBar(healthBar);
+        }
+        return healthBar;
+    }
+
+    /**
+     * Draw the health bar for the player.
+     * @param player Player object to draw the health bar for.
+     */
+    public static void drawHealthBar(Player player) {
+        of(player, Message.FONT30).getRun(player.getHealthPercentage()).draw(PLAYER_X, PLAYER_Y);
     }
 
     /**
@@ -46,21 +101,9 @@ public class HealthBar extends Message {
      * @param entity Entity object to draw the health bar for.
      */
     public static void drawHealthBar(Entity entity) {
-        int health = entity.getHealthPercentage();
-        Message healthBar = new Message(FONT15, 
-                                        entity.getHealthPercentage() + PERCENT, 
-                                        new Point(entity.getPosition().x, entity.getPosition().y - 6));
-        DrawOptions drawOptions = new DrawOptions();
-
-        if (65 <= health && health <= 100) {
-            drawOptions.setBlendColour(GREEN);
-        } else if (35 <= health && health < 65) {
-            drawOptions.setBlendColour(ORANGE);
-        } else if (0 <= health && health < 35) {
-            drawOptions.setBlendColour(RED);
-        } else {
-            throw new RuntimeException(HEALTH_PERCENTAGE_ERROR);
-        }
-        healthBar.draw(drawOptions);
+        Point position = entity.getPosition();
+        Point drawnPos = entity.getDrawnPos();
+        of(entity, Message.FONT15).getRun(entity.getHealthPercentage())
+            .draw(drawnPos.x, drawnPos.y - ENTITY_OFFSET, position.x, position.y - ENTITY_OFFSET);
     }
 }
@@ -0,0 +1,257 @@
+import bagel.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * InputRecorder class appends the input of every simulation tick to a file, so a session can be replayed exactly by
+ * InputReplay. The file starts with a header holding the session's random seed and keyframe interval, followed by
+ * tagged records. A run record is two variable-length integers: the number of ticks with the same input, then the
+ * keys held down and pressed during those ticks as a bit mask. Only the keys the simulation reads are recorded. A
+ * keyframe record holds the full state of the game before a tick, so a replay can start from it instead of from the
+ * first tick. Closing the recorder appends an index of the keyframes and a footer pointing to it.
+ */
+public class InputRecorder implements Closeable {
+
+    /**
+     * Keys that are recorded, in the order of their bits in the mask.
+     */
+    public static final Keys[] RECORDED_KEYS = {
+        Keys.LEFT, Keys.RIGHT, Keys.UP, Keys.DOWN, Keys.A, Keys.K, Keys.L, Keys.W, Keys.S, Keys.SPACE
+    };
+
+    /**
+     * First bytes of every input file.
+     */
+    public static final int MAGIC = 0x53444950;
+
+    /**
+     * Last bytes of an input file that was closed properly, after the offset of its index.
+     */
+    public static final int INDEX_MAGIC = 0x53444958;
+
+    /**
+     * Version of the file format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Bit of the first recorded key's pressed flag in the mask. The keys held down take the bits below it.
+     */
+    public static final int PRESSED_SHIFT = 16;
+
+    /**
+     * Tag of a record holding a run of ticks with the same input.
+     */
+    public static final int RUN = 0;
+
+    /**
+     * Tag of a record holding a keyframe.
+     */
+    public static final int KEYFRAME = 1;
+
+    /**
+     * Tag of the index of keyframes, which is the last record in the file.
+     */
+    public static final int INDEX = 2;
+
+    /**
+     * Number of bytes in the footer: the offset of the index and INDEX_MAGIC.
+     */
+    public static final int FOOTER_SIZE = 12;
+
+    // write completed runs to the file about once a second, so a crash loses little of the session
+    private static final int FLUSH_TICKS = SimClock.TICK_RATE;
+
+    // error messages
+    private static final String WRITE_FAILED = "Input file could not be written: %s";
+
+    private final String path;
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+    private final int keyframeInterval;
+    private final ArrayList<long[]> index;
+    private long ticks;
+    private int mask;
+    private int run;
+    private int unflushed;
+
+    /**
+     * Output stream that counts the bytes written through it, so records can be indexed by their offset.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        /**
+         * Constructor for CountingOutputStream class.
+         * @param out Stream to write to.
+         */
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+            this.count = 0;
+        }
+
+        /**
+         * Write a byte and count it.
+         */
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        /**
+         * Write bytes from an array and count them.
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Constructor for InputRecorder class. Creates the file and writes its header.
+     * @param path Path of the input file.
+     * @param seed Random seed of the session being recorded.
+     * @param keyframeInterval Number of ticks between keyframes.
+     */
+    public InputRecorder(String path, long seed, int keyframeInterval) {
+        this.path = path;
+        this.keyframeInterval = keyframeInterval;
+        this.index = new ArrayList<>();
+        this.ticks = 0;
+        this.mask = 0;
+        this.run = 0;
+        this.unflushed = 0;
+        try {
+            this.counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+            this.out = new DataOutputStream(counter);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(seed);
+            out.writeInt(keyframeInterval);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, path), e);
+        }
+    }
+
+    /**
+     * Pack the recorded keys of a snapshot into a bit mask.
+     * @param input Snapshot of the input.
+     * @return Bit mask of the keys held down and pressed.
+     */
+    public static int pack(InputState input) {
+        int mask = 0;
+        for (int i = 0; i < RECORDED_KEYS.length; i++) {
+            if (input.isDown(RECORDED_KEYS[i])) {
+                mask |= 1 << i;
+            }
+            if (input.wasPressed(RECORDED_KEYS[i])) {
+                mask |= 1 << (PRESSED_SHIFT + i);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Check if a keyframe should be written before the next tick is recorded.
+     * @return True every keyframeInterval ticks, starting with the first tick.
+     */
+    public boolean isKeyframeDue() {
+        return ticks % keyframeInterval == 0;
+    }
+
+    /**
+     * Write a keyframe holding the state of the game before the next tick, and add it to the index.
+     * @param state State of the game.
+     */
+    public void writeKeyframe(byte[] state) {
+        if (run > 0) {
+            writeRun();
+        }
+        index.add(new long[] {ticks, counter.count});
+        try {
+            out.writeByte(KEYFRAME);
+            out.writeLong(ticks);
+            out.writeInt(state.length);
+            out.write(state);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, path), e);
+        }
+    }
+
+    /**
+     * Record the input of one tick.
+     * @param input Snapshot of the input the tick runs with.
+     */
+    public void record(InputState input) {
+        int next = pack(input);
+        if (run > 0 && next != mask) {
+            writeRun();
+        }
+        mask = next;
+        run++;
+        ticks++;
+
+        unflushed++;
+        if (unflushed >= FLUSH_TICKS) {
+            unflushed = 0;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new RuntimeException(String.format(WRITE_FAILED, path), e);
+            }
+        }
+    }
+
+    /**
+     * Write the current run of ticks to the file.
+     */
+    private void writeRun() {
+        try {
+            out.writeByte(RUN);
+            writeVarInt(run);
+            writeVarInt(mask);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, path), e);
+        }
+        run = 0;
+    }
+
+    /**
+     * Write an unsigned integer in as few bytes as it needs, seven bits at a time.
+     * @param value Value to write.
+     * @throws IOException If the file could not be written.
+     */
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Write the last run of ticks and the index of keyframes, then close the file.
+     */
+    @Override
+    public void close() {
+        if (run > 0) {
+            writeRun();
+        }
+        try {
+            long indexOffset = counter.count;
+            out.writeByte(INDEX);
+            out.writeInt(index.size());
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(INDEX_MAGIC);
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, path), e);
+        }
+    }
+}
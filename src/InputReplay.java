@@ -0,0 +1,333 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * InputReplay class reads a file written by InputRecorder and gives back the input of each tick in turn. Together
+ * with the recorded random seed, this runs the simulation through exactly the same states as the recorded session.
+ * A replay can also seek to any tick, by restoring the keyframe at or before it and replaying at most one keyframe
+ * interval of ticks from there.
+ */
+public class InputReplay implements Closeable {
+
+    // size of the header, which holds the magic number, version, seed and keyframe interval
+    private static final int HEADER_SIZE = 18;
+
+    // error messages
+    private static final String READ_FAILED = "Input file could not be read: %s";
+    private static final String INVALID_FILE = "Not an input file: %s";
+    private static final String NO_KEYFRAME = "Input file has no keyframe to seek from: %s";
+
+    private final String path;
+    private final long seed;
+    private final int keyframeInterval;
+    private DataInputStream in;
+    private long[][] index;
+    private int mask;
+    private int run;
+    private long ticks;
+    private boolean finished;
+
+    /**
+     * Input stream that counts the bytes read through it, so the offsets of records can be found while reading.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        /**
+         * Constructor for CountingInputStream class.
+         * @param in Stream to read from.
+         * @param count Offset in the file the stream starts at.
+         */
+        private CountingInputStream(InputStream in, long count) {
+            super(in);
+            this.count = count;
+        }
+
+        /**
+         * Read a byte and count it.
+         */
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        /**
+         * Read bytes into an array and count them.
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        /**
+         * Skip bytes and count them.
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Constructor for InputReplay class. Opens the file and reads its header.
+     * @param path Path of the input file.
+     */
+    public InputReplay(String path) {
+        this.path = path;
+        this.index = null;
+        this.mask = 0;
+        this.run = 0;
+        this.ticks = 0;
+        this.finished = false;
+        try {
+            open(0);
+            if (in.readInt() != InputRecorder.MAGIC || in.readShort() != InputRecorder.VERSION) {
+                in.close();
+                throw new RuntimeException(String.format(INVALID_FILE, path));
+            }
+            this.seed = in.readLong();
+            this.keyframeInterval = in.readInt();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(READ_FAILED, path), e);
+        }
+    }
+
+    /**
+     * Open the file for reading from an offset, closing the stream that was open before.
+     * @param offset Offset in the file to read from.
+     * @throws IOException If the file could not be opened.
+     */
+    private void open(long offset) throws IOException {
+        if (in != null) {
+            in.close();
+        }
+        FileInputStream file = new FileInputStream(path);
+        file.getChannel().position(offset);
+        in = new DataInputStream(new BufferedInputStream(file));
+    }
+
+    /**
+     * Get the random seed of the recorded session.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the number of ticks between keyframes.
+     */
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Get the number of ticks replayed so far.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Unpack a bit mask written by InputRecorder into a snapshot.
+     * @param mask Bit mask of the keys held down and pressed.
+     * @return Snapshot of the input.
+     */
+    public static InputState unpack(int mask) {
+        InputState input = new InputState();
+        for (int i = 0; i < InputRecorder.RECORDED_KEYS.length; i++) {
+            input.setDown(InputRecorder.RECORDED_KEYS[i], (mask & (1 << i)) != 0);
+            input.setPressed(InputRecorder.RECORDED_KEYS[i], (mask & (1 << (InputRecorder.PRESSED_SHIFT + i))) != 0);
+        }
+        return input;
+    }
+
+    /**
+     * Check if there are ticks left to replay, skipping over any keyframes before the next run of ticks.
+     * @return True if there is another tick, false at the end of the recording.
+     */
+    public boolean hasNext() {
+        try {
+            while (run == 0 && !finished) {
+                int tag = in.read();
+                if (tag == InputRecorder.RUN) {
+                    run = readVarInt();
+                    mask = readVarInt();
+                } else if (tag == InputRecorder.KEYFRAME) {
+                    in.readLong();
+                    in.skipBytes(in.readInt());
+                } else {
+                    // the index, or the end of a file that was not closed properly
+                    finished = true;
+                }
+            }
+        } catch (EOFException e) {
+            // a record cut short by a crash while recording ends the replay
+            finished = true;
+            run = 0;
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(READ_FAILED, path), e);
+        }
+        return run > 0;
+    }
+
+    /**
+     * Get the input of the next tick. Call hasNext first.
+     * @return Snapshot of the input.
+     */
+    public InputState next() {
+        if (!hasNext()) {
+            throw new IllegalStateException(String.format(READ_FAILED, path));
+        }
+        run--;
+        ticks++;
+        return unpack(mask);
+    }
+
+    /**
+     * Move the replay to the last keyframe at or before a tick. The caller restores the state in the keyframe and
+     * replays the ticks from there up to the tick it wants.
+     * @param tick Tick to seek to.
+     * @return State of the game in the keyframe. The replay continues from the tick after it.
+     */
+    public byte[] seek(long tick) {
+        try {
+            long[][] keyframes = getIndex();
+            long[] keyframe = null;
+            for (long[] entry : keyframes) {
+                if (entry[0] <= tick) {
+                    keyframe = entry;
+                }
+            }
+            if (keyframe == null) {
+                throw new IllegalStateException(String.format(NO_KEYFRAME, path));
+            }
+
+            open(keyframe[1]);
+            if (in.read() != InputRecorder.KEYFRAME) {
+                throw new RuntimeException(String.format(INVALID_FILE, path));
+            }
+            ticks = in.readLong();
+            byte[] state = new byte[in.readInt()];
+            in.readFully(state);
+            run = 0;
+            finished = false;
+            return state;
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(READ_FAILED, path), e);
+        }
+    }
+
+    /**
+     * Get the index of keyframes, reading it from the end of the file the first time. A file that was not closed
+     * properly has no index, so it is rebuilt by scanning the records instead.
+     * @return Tick and file offset of every keyframe, in order.
+     * @throws IOException If the file could not be read.
+     */
+    private long[][] getIndex() throws IOException {
+        if (index != null) {
+            return index;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            long length = file.length();
+            if (length >= HEADER_SIZE + InputRecorder.FOOTER_SIZE) {
+                file.seek(length - InputRecorder.FOOTER_SIZE);
+                long indexOffset = file.readLong();
+                if (file.readInt() == InputRecorder.INDEX_MAGIC) {
+                    file.seek(indexOffset);
+                    if (file.read() == InputRecorder.INDEX) {
+                        index = new long[file.readInt()][];
+                        for (int i = 0; i < index.length; i++) {
+                            index[i] = new long[] {file.readLong(), file.readLong()};
+                        }
+                        return index;
+                    }
+                }
+            }
+        }
+        index = scanIndex();
+        return index;
+    }
+
+    /**
+     * Build the index of keyframes by reading every record in the file.
+     * @return Tick and file offset of every keyframe, in order.
+     * @throws IOException If the file could not be read.
+     */
+    private long[][] scanIndex() throws IOException {
+        ArrayList<long[]> keyframes = new ArrayList<>();
+        try (CountingInputStream scanCounter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(path)), 0)) {
+            DataInputStream scan = new DataInputStream(scanCounter);
+            scan.skipBytes(HEADER_SIZE);
+            while (true) {
+                long offset = scanCounter.count;
+                int tag = scan.read();
+                if (tag == InputRecorder.RUN) {
+                    readVarInt(scan);
+                    readVarInt(scan);
+                } else if (tag == InputRecorder.KEYFRAME) {
+                    long tick = scan.readLong();
+                    int length = scan.readInt();
+                    if (scan.skipBytes(length) < length) {
+                        break;
+                    }
+                    keyframes.add(new long[] {tick, offset});
+                } else {
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // the last record was cut short by a crash while recording
+        }
+        return keyframes.toArray(new long[0][]);
+    }
+
+    /**
+     * Read an unsigned integer written seven bits at a time from the replay's stream.
+     * @return Value read.
+     * @throws IOException If the file could not be read.
+     */
+    private int readVarInt() throws IOException {
+        return readVarInt(in);
+    }
+
+    /**
+     * Read an unsigned integer written seven bits at a time.
+     * @param stream Stream to read from.
+     * @return Value read.
+     * @throws IOException If the file could not be read.
+     */
+    private static int readVarInt(DataInputStream stream) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = stream.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Close the file.
+     */
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(READ_FAILED, path), e);
+        }
+    }
+}
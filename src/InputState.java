@@ -0,0 +1,111 @@
+import bagel.*;
+
+/**
+ * InputState class is a snapshot of the keyboard taken at the start of a frame. The simulation reads the snapshot
+ * instead of bagel's Input, so it can run on another thread while the window keeps polling for new input.
+ */
+public class InputState {
+
+    private static final Keys[] KEYS = Keys.values();
+
+    private final boolean[] pressed;
+    private final boolean[] released;
+    private final boolean[] down;
+
+    /**
+     * Constructor for InputState class. No keys are pressed or down.
+     */
+    public InputState() {
+        this.pressed = new boolean[KEYS.length];
+        this.released = new boolean[KEYS.length];
+        this.down = new boolean[KEYS.length];
+    }
+
+    /**
+     * Take a snapshot of the keyboard.
+     * @param input Input from the user.
+     * @return Snapshot of the keyboard.
+     */
+    public static InputState capture(Input input) {
+        InputState state = new InputState();
+        for (Keys key : KEYS) {
+            int i = key.ordinal();
+            state.pressed[i] = input.wasPressed(key);
+            state.released[i] = input.wasReleased(key);
+            state.down[i] = input.isDown(key);
+        }
+        return state;
+    }
+
+    /**
+     * Check if a key was pressed this frame.
+     * @param key Key to check.
+     * @return True if the key was pressed, false otherwise.
+     */
+    public boolean wasPressed(Keys key) {
+        return pressed[key.ordinal()];
+    }
+
+    /**
+     * Check if a key was released this frame.
+     * @param key Key to check.
+     * @return True if the key was released, false otherwise.
+     */
+    public boolean wasReleased(Keys key) {
+        return released[key.ordinal()];
+    }
+
+    /**
+     * Check if a key is held down.
+     * @param key Key to check.
+     * @return True if the key is down, false otherwise.
+     */
+    public boolean isDown(Keys key) {
+        return down[key.ordinal()];
+    }
+
+    /**
+     * Set whether a key was pressed this frame, e.g. for scripted input.
+     * @param key Key to set.
+     * @param pressed True if the key was pressed.
+     */
+    public void setPressed(Keys key, boolean pressed) {
+        this.pressed[key.ordinal()] = pressed;
+    }
+
+    /**
+     * Set whether a key is held down, e.g. for scripted input.
+     * @param key Key to set.
+     * @param down True if the key is down.
+     */
+    public void setDown(Keys key, boolean down) {
+        this.down[key.ordinal()] = down;
+    }
+
+    /**
+     * Combine this snapshot with a later one, e.g. when frames pass without a simulation tick. Keys pressed or
+     * released in either snapshot count as pressed or released; keys held down are taken from the later snapshot.
+     * @param later Later snapshot.
+     * @return Combined snapshot.
+     */
+    public InputState merge(InputState later) {
+        InputState state = new InputState();
+        for (int i = 0; i < KEYS.length; i++) {
+            state.pressed[i] = pressed[i] || later.pressed[i];
+            state.released[i] = released[i] || later.released[i];
+            state.down[i] = later.down[i];
+        }
+        return state;
+    }
+
+    /**
+     * Get a copy of this snapshot with only the keys held down, for the extra ticks run in the same frame so that a
+     * key press is only seen once.
+     * @return Snapshot of the keys held down.
+     */
+    public InputState held() {
+        InputState state = new InputState();
+        System.arraycopy(down, 0, state.down, 0, KEYS.length);
+        return state;
+    }
+}
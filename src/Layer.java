@@ -0,0 +1,58 @@
+/**
+ * Layer class holds the collision layer bits of each archetype of game object. Collision queries take a mask of the
+ * layers they are interested in, so filtering is a single bitwise check instead of a type comparison.
+ */
+public final class Layer {
+
+    /**
+     * Layer of the player.
+     */
+    public static final int PLAYER = 1;
+
+    /**
+     * Layer of regular demons.
+     */
+    public static final int DEMON = 1 << 1;
+
+    /**
+     * Layer of Navec.
+     */
+    public static final int NAVEC = 1 << 2;
+
+    /**
+     * Layer of walls and trees.
+     */
+    public static final int BARRIER = 1 << 3;
+
+    /**
+     * Layer of sinkholes.
+     */
+    public static final int SINKHOLE = 1 << 4;
+
+    /**
+     * Layer of demon fire.
+     */
+    public static final int FIRE = 1 << 5;
+
+    /**
+     * Mask of every demon, including Navec.
+     */
+    public static final int DEMONS = DEMON | NAVEC;
+
+    /**
+     * Number of layers.
+     */
+    public static final int COUNT = 6;
+
+    private Layer() {
+    }
+
+    /**
+     * Get the index of a single layer bit, e.g. for indexing per-layer storage.
+     * @param layer Layer bit.
+     * @return Index of the layer.
+     */
+    public static int indexOf(int layer) {
+        return Integer.numberOfTrailingZeros(layer);
+    }
+}
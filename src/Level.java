@@ -1,4 +1,6 @@
 import bagel.*;
+import bagel.util.*;
+import java.io.*;
 import java.util.*;
 
 /**
@@ -35,12 +37,23 @@ public abstract class Level {
     /**
      * Font size 75.
      */
-    public static final Font FONT75 = new Font(FONT_PATH, 75);
+    public static final FontAsset FONT75 = FontAsset.get(FONT_PATH, 75);
 
     /**
      * Font size 40.
      */
-    public static final Font FONT40 = new Font(FONT_PATH, 40);
+    public static final FontAsset FONT40 = FontAsset.get(FONT_PATH, 40);
+
+    // layers the player and demons can come into contact with
+    private static final int PLAYER_CONTACTS = Layer.DEMONS | Layer.BARRIER | Layer.SINKHOLE;
+    private static final int DEMON_CONTACTS = Layer.BARRIER | Layer.SINKHOLE;
+
+    // layers drawn by drawObjects, in the order they are drawn, and the render layers they are drawn in
+    private static final int[] DRAWN_LAYERS = {Layer.BARRIER, Layer.SINKHOLE, Layer.DEMONS};
+    private static final int[] RENDER_LAYERS = {Renderer.GROUND_LAYER, Renderer.GROUND_LAYER, Renderer.DEMON_LAYER};
+
+    // distance outside the window that objects are still drawn within, so nothing pops in at the edges
+    private static final double VIEW_MARGIN = SpatialHash.DEFAULT_CELL_SIZE;
 
     // variables
     private boolean prepareLevel;
@@ -48,7 +61,18 @@ public abstract class Level {
     private boolean endScreen;
     private Boundary boundary;
     private GameObject[] objects;
-    private GameObject[] gameObjects;
+    private EntityRegistry registry;
+    private OccupancyGrid barrierGrid;
+    private OccupancyGrid sinkholeGrid;
+    private ContactCache contactCache;
+    private DemonSpawner spawner;
+    private DemonKinematics kinematics;
+    private ParallelDemonUpdate parallelUpdate;
+    private List<GameObject> playerContacts;
+    private volatile Set<Sprite> assets;
+    private Camera camera;
+    private StaticLayer staticLayer;
+    private ArrayList<GameObject> visibleObjects;
 
     /**
      * Constructor for Level class.
@@ -59,17 +83,42 @@ public abstract class Level {
         this.endScreen = false;
         this.boundary = null;
         this.objects = null;
-        this.gameObjects = null;
+        this.registry = new EntityRegistry();
+        this.barrierGrid = null;
+        this.sinkholeGrid = null;
+        this.contactCache = new ContactCache(registry);
+        this.spawner = new DemonSpawner(registry);
+        this.kinematics = new DemonKinematics();
+        this.parallelUpdate = new ParallelDemonUpdate();
+        this.playerContacts = Collections.emptyList();
+        this.assets = Collections.emptySet();
+        this.staticLayer = null;
+        this.camera = new Camera(ShadowDimension.WINDOW_WIDTH, ShadowDimension.WINDOW_HEIGHT);
+        this.visibleObjects = new ArrayList<>();
+    }
+
+    /**
+     * Run one tick of the level and draw it.
+     * @param input Input object.
+     */
+    public void run(InputState input) {
+        update(input);
+        draw();
     }
 
     /**
-     * Run the level.
+     * Update the level by one tick without drawing anything, so several ticks can run for each frame drawn.
      * @param input Input object.
      */
-    public abstract void run(Input input);
+    public abstract void update(InputState input);
+
+    /**
+     * Draw the level as it is after the last tick.
+     */
+    public abstract void draw();
 
     /**
-     * Start screen for the level.
+     * Draw the start screen for the level.
      */
     protected abstract void startScreen();
 
@@ -79,10 +128,95 @@ public abstract class Level {
     protected abstract void prepare();
     
     /**
-     * Display the start screen for the level.
+     * Wait on the start screen for the level, preparing the level if necessary.
      * @param input Input object.
      */
-    protected abstract void displayStartScreen(Input input);
+    protected abstract void displayStartScreen(InputState input);
+
+    /**
+     * Write the state of the level to a replay keyframe: the screen it is on, and once prepared, the player, the
+     * sinkholes left and the demons in the order they update.
+     * @param out Stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeBoolean(prepareLevel);
+        out.writeBoolean(startScreen);
+        out.writeBoolean(endScreen);
+        if (prepareLevel) {
+            return;
+        }
+
+        registry.getPlayer().writeState(out);
+        out.writeInt(registry.getSinkholes().size());
+        for (Sinkhole sinkhole : registry.getSinkholes()) {
+            out.writeDouble(sinkhole.getPosition().x);
+            out.writeDouble(sinkhole.getPosition().y);
+        }
+        out.writeInt(registry.getDemons().size());
+        for (Demon demon : registry.getDemons()) {
+            out.writeInt(demon.getLayer());
+            demon.writeState(out);
+        }
+        out.writeInt(spawner.getNextSpawnPoint());
+    }
+
+    /**
+     * Read the state of the level written by writeState. The level is prepared again from its csv file, then the
+     * sinkholes that are gone are removed and the demons are replaced by the ones in the keyframe.
+     * @param in Stream to read from.
+     * @throws IOException If the stream could not be read.
+     */
+    public void readState(DataInputStream in) throws IOException {
+        prepareLevel = in.readBoolean();
+        startScreen = in.readBoolean();
+        endScreen = in.readBoolean();
+        if (prepareLevel) {
+            return;
+        }
+
+        prepare();
+        registry.getPlayer().readState(in);
+        int sinkholeCount = in.readInt();
+        double[] sinkholes = new double[2 * sinkholeCount];
+        for (int i = 0; i < sinkholes.length; i++) {
+            sinkholes[i] = in.readDouble();
+        }
+        for (Sinkhole sinkhole : registry.getSinkholes()) {
+            if (!containsPosition(sinkholes, sinkhole.getPosition())) {
+                removeGameObject(sinkhole);
+            }
+        }
+        for (Demon demon : registry.getDemons()) {
+            removeGameObject(demon);
+        }
+        flushRemovedGameObjects();
+
+        // add the demons back in the order they were written, which is the order they update in
+        int demonCount = in.readInt();
+        for (int i = 0; i < demonCount; i++) {
+            Demon demon = spawner.take(in.readInt());
+            demon.readState(in);
+            registry.add(demon);
+        }
+        spawner.setNextSpawnPoint(in.readInt());
+        contactCache.clear();
+    }
+
+    /**
+     * Check if a list of x and y coordinates contains a position.
+     * @param positions Coordinates, with each x followed by its y.
+     * @param position Position to look for.
+     * @return True if the position is in the list, false otherwise.
+     */
+    private static boolean containsPosition(double[] positions, Point position) {
+        for (int i = 0; i < positions.length; i += 2) {
+            if (positions[i] == position.x && positions[i + 1] == position.y) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
      * Get the value of prepareLevel.
@@ -160,18 +294,119 @@ public abstract class Level {
     }
 
     /**
-     * Get the game objects of the level.
+     * Set the game objects of the level. This also rebuilds the entity registry used for collision queries and bakes
+     * the occupancy grids of the stationary barriers and sinkholes.
+     * @param gameObjects Game objects of the level.
      */
-    public GameObject[] getGameObjects() {
-        return gameObjects;
+    public void setGameObjects(GameObject[] gameObjects) {
+        registry.clear();
+        if (objects != null) {
+            registry.add(GameObject.getPlayer(objects));
+        }
+        registry.addAll(gameObjects);
+        contactCache.clear();
+        barrierGrid = OccupancyGrid.bake(registry.getBarriers());
+        sinkholeGrid = OccupancyGrid.bake(registry.getSinkholes());
     }
 
     /**
-     * Set the game objects of the level.
-     * @param gameObjects Game objects of the level.
+     * Get the entity registry of the level's game objects.
      */
-    public void setGameObjects(GameObject[] gameObjects) {
-        this.gameObjects = gameObjects;
+    public EntityRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Get the parallel update used for the level's demons.
+     */
+    public ParallelDemonUpdate getParallelUpdate() {
+        return parallelUpdate;
+    }
+
+    /**
+     * Get the spawner that emits waves of demons into the level.
+     */
+    public DemonSpawner getSpawner() {
+        return spawner;
+    }
+
+    /**
+     * Queue a game object to be removed from the level at the end of the tick.
+     * @param gameObject Game object to remove.
+     */
+    protected void removeGameObject(GameObject gameObject) {
+        registry.destroy(gameObject);
+    }
+
+    /**
+     * Remove every game object queued for removal during this tick. Must be called at the end of each tick.
+     */
+    protected void flushRemovedGameObjects() {
+        for (GameObject gameObject : registry.flush()) {
+            contactCache.remove(gameObject);
+
+            // dead demons can be respawned by later waves
+            if ((gameObject.getLayer() & Layer.DEMONS) != 0) {
+                spawner.release((Demon) gameObject);
+            }
+
+            // clear the tiles of the removed sinkhole, keeping any still covered by a neighbouring sinkhole
+            if (gameObject.getLayer() == Layer.SINKHOLE) {
+                Rectangle rectangle = gameObject.getRectangle();
+                sinkholeGrid.clear(rectangle);
+                ArrayList<GameObject> neighbours = new ArrayList<>();
+                registry.query(rectangle, Layer.SINKHOLE, neighbours);
+                for (GameObject neighbour : neighbours) {
+                    sinkholeGrid.mark(neighbour.getRectangle());
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if a game object collides with a stationary object in the given layer. The occupancy grid is checked
+     * first, so contacts are only generated when the object is near a blocker.
+     * @param gameObject Game object to check collision for.
+     * @param grid Occupancy grid of the stationary objects.
+     * @param layer Layer of the stationary objects.
+     * @return True if the game object collides with a stationary object, false otherwise.
+     */
+    private boolean collidesStatic(GameObject gameObject, OccupancyGrid grid, int layer) {
+        return grid.isOccupied(gameObject.getRectangle())
+            && ContactCache.getContact(contactCache.getContacts(gameObject, DEMON_CONTACTS), layer) != null;
+    }
+
+    /**
+     * Check if a game object collides with a barrier or sinkhole without going through the contact cache, so it can
+     * be called from several threads at once. Gives the same result as collidesStatic for both layers.
+     * @param gameObject Game object to check.
+     * @param candidates Scratch list for the broad phase, owned by the calling thread.
+     * @return True if the game object collides with a barrier or sinkhole, false otherwise.
+     */
+    private boolean touchesStatic(GameObject gameObject, ArrayList<GameObject> candidates) {
+        Rectangle rectangle = gameObject.getRectangle();
+        int mask = (barrierGrid.isOccupied(rectangle) ? Layer.BARRIER : 0)
+            | (sinkholeGrid.isOccupied(rectangle) ? Layer.SINKHOLE : 0);
+        if (mask == 0) {
+            return false;
+        }
+        candidates.clear();
+        registry.query(rectangle, mask, candidates);
+        for (GameObject candidate : candidates) {
+            if (candidate.collides(gameObject)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generate the player's contacts for this tick. Must be called once the player has moved, before any of the
+     * player's collisions are handled.
+     * @param player Player object.
+     */
+    protected void findContacts(Player player) {
+        playerContacts = contactCache.getContacts(player, PLAYER_CONTACTS);
     }
 
     /**
@@ -179,8 +414,8 @@ public abstract class Level {
      * @param message Message to display.
      */
     public static void gameEndMessage(String message) {
-        Message msg = new Message(FONT75, message);
-        msg.draw();
+        TextRun run = TextRun.get(FONT75, message, null);
+        run.draw((Window.getWidth() - run.getWidth()) / 2.0, Window.getHeight() / 2.0);
     }
 
     /**
@@ -196,27 +431,24 @@ public abstract class Level {
     }
 
     /**
-     * Check if player collides with any game objects. If so, handle the collision.
+     * Check if player collides with any game objects. If so, handle the collision. Reads the contacts generated by
+     * findContacts.
      * @param player Player object.
      */
     protected void checkCollisions(Player player) {
         
         // check if player hit a sinkhole (while not being invincible)
-        if (player.collides(gameObjects, Sinkhole.class) && !player.isInvincible()) {
+        Sinkhole sinkhole = (Sinkhole) ContactCache.getContact(playerContacts, Layer.SINKHOLE);
+        if (sinkhole != null && !player.isInvincible()) {
 
-            // get specific sinkhole collided with and inflict damage
-            Sinkhole sinkhole = (Sinkhole) player.getCollidedObject(gameObjects, Sinkhole.class);
+            // inflict damage and remove sinkhole from game
             sinkhole.inflictDamageTo(player);
-
-            // remove sinkhole from game
-            gameObjects = GameObject.removeGameObject(gameObjects, sinkhole);
+            removeGameObject(sinkhole);
         }
 
-        // check if player hit a barrier
-        if (player.collides(gameObjects, Barrier.class)) {
-
-            // block player from moving
-            Barrier wall = (Barrier) player.getCollidedObject(gameObjects, Barrier.class);
+        // check if player hit a barrier, and if so, block player from moving
+        Barrier wall = (Barrier) ContactCache.getContact(playerContacts, Layer.BARRIER);
+        if (wall != null) {
             wall.block(player);
         }
     }
@@ -236,23 +468,51 @@ public abstract class Level {
      * opposite direction.
      */
     protected void moveDemons() {
-        for (GameObject object : gameObjects) {
-            if (!(object instanceof Demon)) {
-                continue;
-            }
-            Demon demon = (Demon) object;
-            demon.move(demon.getDirection());
-
-            // if the demon hits a barrier, sinkhole or boundary, reverse the direction
-            if (demon.collides(gameObjects, Barrier.class)
-                || demon.collides(gameObjects, Sinkhole.class)
-                || !boundary.contains(demon.getPosition())) {
+        DemonData data = registry.getDemonData();
+        int count = data.size();
+
+        // move every demon, then test them all against the boundary and the occupancy grids in bulk
+        DemonKinematics.advance(data.getX(), data.getY(), data.getPrevX(), data.getPrevY(),
+                                data.getDirX(), data.getDirY(), data.getSpeed(), count);
+        kinematics.testBlocked(data, boundary, barrierGrid, sinkholeGrid);
+        boolean[] blocked = kinematics.getBlocked();
+        boolean[] nearStatic = kinematics.getNearStatic();
+
+        // bring each demon's rectangle and images up to date before any collision checks
+        for (int i = 0; i < count; i++) {
+            Demon demon = data.getDemon(i);
+            demon.syncMoved();
+            registry.moved(demon);
+        }
 
-                // reverse the direction
-                demon.setDirection(demon.getDirection().mul(-1));
+        // if the demon hits a barrier, sinkhole or boundary, it is blocked
+        if (parallelUpdate.isParallel(count)) {
+            parallelUpdate.forEach(count, (from, to) -> {
+                ArrayList<GameObject> candidates = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    if (!blocked[i] && nearStatic[i]) {
+                        blocked[i] = touchesStatic(data.getDemon(i), candidates);
+                    }
+                }
+            });
+        } else {
+            for (int i = 0; i < count; i++) {
+                if (!blocked[i] && nearStatic[i]) {
+                    Demon demon = data.getDemon(i);
+                    blocked[i] = collidesStatic(demon, barrierGrid, Layer.BARRIER)
+                        || collidesStatic(demon, sinkholeGrid, Layer.SINKHOLE);
+                }
+            }
+        }
 
-                // move the demon in the opposite direction
-                demon.move(demon.getDirection());
+        // reverse the direction of blocked demons and move them in the opposite direction
+        DemonKinematics.reverseAndAdvance(data.getX(), data.getY(), data.getPrevX(), data.getPrevY(),
+                                          data.getDirX(), data.getDirY(), data.getSpeed(), blocked, count);
+        for (int i = 0; i < count; i++) {
+            if (blocked[i]) {
+                Demon demon = data.getDemon(i);
+                demon.syncMoved();
+                registry.moved(demon);
             }
         }
     }
@@ -261,50 +521,79 @@ public abstract class Level {
      * Check if any demons are dead or if they are not invincible anymore. If so, remove them from the game.
      */
     protected void checkDemons() {
-        for (GameObject gameObject : gameObjects) {
-            if (!(gameObject instanceof Demon)) {
-                continue;
-            }
-
-            Demon demon = (Demon) gameObject;
-            if (demon.isDead()) {
-                if (demon instanceof Navec) {
+        DemonData data = registry.getDemonData();
+        int[] health = data.getHealth();
+        for (int i = 0; i < data.size(); i++) {
+            Demon demon = data.getDemon(i);
+            if (health[i] <= 0) {
+                if (demon.getLayer() == Layer.NAVEC) {
                     ShadowDimension.setStage(GAME_WON_STAGE);
                 }
-                gameObjects = GameObject.removeGameObject(gameObjects, demon);
+                removeGameObject(demon);
             }
             demon.checkStates();
         }
     }
 
     /**
-     * Check if demons should attack if the player is within it's attack radius. Renders fire to the screen. 
+     * Check if demons should attack if the player is within it's attack radius. The fire is drawn by drawFires.
      * If player touches a demon's fire, inflict damage to the player.
      * @param player Player object.
      */
     protected void demonsAttack(Player player) {
-        for (GameObject gameObject : gameObjects) {
-            if (!(gameObject instanceof Demon)) {
-                continue;
-            }
-            Demon demon = (Demon) gameObject;
-            if (demon.isInAttackRadius(player)) {
-                demon.attack();
+        registry.clearFires();
+        EntityStore<Demon> demons = registry.getDemons();
+        int count = demons.size();
+        if (!parallelUpdate.isParallel(count)) {
+            for (int i = 0; i < count; i++) {
+                Demon demon = demons.getAt(i);
                 Fire fire = demon.shootFireAt(player);
-                fire.draw();
-                if (player.collides(fire) && !player.isInvincible()) {
-                    fire.inflictDamageTo(player);
+                if (fire != null) {
+                    demon.attack();
+                    registry.add(fire);
+                    if (fire.hits(player) && !player.isInvincible()) {
+                        fire.inflictDamageTo(player);
+                    }
                 }
             }
+            return;
+        }
+
+        // work out which demons shoot and whose fire hits the player in parallel, growing the slots first so the
+        // intent phase and the commit phase use the same arrays
+        parallelUpdate.ensureCapacity(count);
+        Fire[] fires = parallelUpdate.getFires();
+        boolean[] hitsPlayer = parallelUpdate.getHitsPlayer();
+        parallelUpdate.forEach(count, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                Demon demon = demons.getAt(i);
+                Fire fire = demon.shootFireAt(player);
+                fires[i] = fire;
+                hitsPlayer[i] = fire != null && fire.hits(player);
+            }
+        });
+
+        // apply the attacks in order, so only the first fire to hit the player deals damage
+        for (int i = 0; i < count; i++) {
+            Fire fire = fires[i];
+            if (fire == null) {
+                continue;
+            }
+            fires[i] = null;
+            demons.getAt(i).attack();
+            registry.add(fire);
+            if (hitsPlayer[i] && !player.isInvincible()) {
+                fire.inflictDamageTo(player);
+            }
         }
     }
 
     /**
-     * Attack if player presses A. If in attack state, inflict damage to demons.
+     * Attack if player presses A. If in attack state, inflict damage to demons in the player's contacts.
      * @param input Input object.
      * @param player Player object.
      */
-    protected void playerAttack(Input input, Player player) {
+    protected void playerAttack(InputState input, Player player) {
 
         // trigger attack state
         if (input.wasPressed(Keys.A)) {
@@ -313,41 +602,176 @@ public abstract class Level {
 
         // if player is in attack state, inflict damage to demons
         if (player.isAttacking()) {
-            ArrayList<GameObject> demons = new ArrayList<GameObject>();
+            hitDemons(player, Layer.DEMON);
+            hitDemons(player, Layer.NAVEC);
+        }
+    }
 
-            if (player.collides(gameObjects, Demon.class)) {
-                demons.addAll(player.getCollidedObjects(gameObjects, Demon.class));
+    /**
+     * Inflict damage to every demon in the given layer in the player's contacts.
+     * @param player Player object.
+     * @param layer Layer of the demons to hit.
+     */
+    private void hitDemons(Player player, int layer) {
+        for (GameObject contact : playerContacts) {
+            if (contact.getLayer() != layer) {
+                continue;
             }
+            Demon demon = (Demon) contact;
+            if (!demon.isInvincible()) {
+                player.inflictDamageTo(demon);
+            }
+        }
+    }
 
-            if (player.collides(gameObjects, Navec.class)) {
-                demons.addAll(player.getCollidedObjects(gameObjects, Navec.class));
+    /**
+     * Draw the barriers, sinkholes and demons of the level that are in view of the camera. Only the cells of the
+     * spatial hash around the view are looked at, so the cost of drawing depends on the size of the window rather than
+     * the size of the level.
+     */
+    protected void drawObjects() {
+        Rectangle viewport = camera.getViewport(VIEW_MARGIN);
+        for (int i = 0; i < DRAWN_LAYERS.length; i++) {
+            // barriers baked into the static layer are drawn with it
+            if (DRAWN_LAYERS[i] == Layer.BARRIER && staticLayer != null) {
+                continue;
             }
-            
-            for (GameObject gameObject : demons) {
-                Demon demon = (Demon) gameObject;
-                if (!demon.isInvincible()) {
-                    player.inflictDamageTo(demon);
+            Renderer.setLayer(RENDER_LAYERS[i]);
+            visibleObjects.clear();
+            registry.query(viewport, DRAWN_LAYERS[i], visibleObjects);
+            for (GameObject gameObject : visibleObjects) {
+                if (gameObject.getRectangle().intersects(viewport)) {
+                    gameObject.draw();
                 }
             }
         }
+        visibleObjects.clear();
     }
 
     /**
-     * Draw the objects in the game given an array of objects.
-     * @param objects Array of objects to draw.
+     * Draw the fire shot by the demons during the last tick that is in view of the camera.
      */
-    protected void drawObjects(GameObject[] objects) {
-        for (GameObject object : objects) {
-            object.draw();
+    protected void drawFires() {
+        Renderer.setLayer(Renderer.FIRE_LAYER);
+        for (Fire fire : registry.getFires()) {
+            Sprite image = fire.getImage();
+            if (camera.isVisible(fire.getX(), fire.getY(), image.getWidth(), image.getHeight())) {
+                fire.draw();
+            }
         }
     }
 
     /**
-     * Draw the background for the game.
+     * Move the camera to follow the player and draw the level through it, until endCamera is called.
+     * @param player Player of the level.
+     */
+    protected void beginCamera(Player player) {
+        camera.follow(player, boundary);
+        Renderer.setCamera(camera);
+    }
+
+    /**
+     * Stop drawing through the camera, so what is drawn next, such as the player's health, stays still in the window
+     * and is drawn over the level.
+     */
+    protected void endCamera() {
+        Renderer.setCamera(null);
+        Renderer.setLayer(Renderer.HUD_LAYER);
+    }
+
+    /**
+     * Get the camera the level is drawn through.
+     * @return Camera of the level.
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Collect the sprites the level may draw: its background and those of its objects.
+     * @param background Background image as a string.
+     * @return Sprites of the level.
+     */
+    protected Set<Sprite> collectAssets(String background) {
+        Set<Sprite> sprites = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (staticLayer != null) {
+            staticLayer.collectSprites(sprites);
+        } else {
+            sprites.add(Sprite.get(background));
+        }
+        for (GameObject gameObject : objects) {
+            gameObject.collectSprites(sprites);
+        }
+        return sprites;
+    }
+
+    /**
+     * Bake the level's static layer, then acquire the sprites of the level from the asset registry and queue them to
+     * be loaded, so the level does not stop to load images while it is played. Called at the end of preparing the
+     * level. Any sprites acquired by an earlier call are released after the new ones are acquired, so sprites used by
+     * both are not unloaded in between. Headless sessions draw nothing, so they do not bake a static layer.
+     * @param background Background image as a string.
+     */
+    protected void loadAssets(String background) {
+        bakeStaticLayer(background);
+        Set<Sprite> previous = assets;
+        assets = collectAssets(background);
+        AssetRegistry.acquire(assets);
+        AssetRegistry.release(previous);
+        AssetRegistry.preload(assets);
+    }
+
+    /**
+     * Release the sprites of the level, e.g. once the game has moved on to another stage. Sprites no other level
+     * holds are unloaded.
+     */
+    public void unloadAssets() {
+        AssetRegistry.release(assets);
+        assets = Collections.emptySet();
+    }
+
+    /**
+     * Get the sprites the level holds in the asset registry.
+     * @return Sprites of the level, empty if the level has not been prepared or has been unloaded.
+     */
+    public Set<Sprite> getAssets() {
+        return Collections.unmodifiableSet(assets);
+    }
+
+    /**
+     * Bake the level's background and barriers into its static layer, unless the layer was already baked from the
+     * same ones, e.g. when a keyframe restores the level. A layer baked again replaces the sprites of the old one.
+     * @param background Background image as a string.
+     */
+    private void bakeStaticLayer(String background) {
+        if (GameContext.current().isHeadless()) {
+            return;
+        }
+        long signature = StaticLayer.getSignature(background, registry.getBarriers());
+        if (staticLayer != null && staticLayer.isBakedFrom(signature)) {
+            return;
+        }
+        if (staticLayer != null) {
+            staticLayer.dispose();
+        }
+        staticLayer = StaticLayer.bake(getClass().getSimpleName(), background, registry.getBarriers(), signature);
+    }
+
+    /**
+     * Draw the background for the game, with the barriers baked into it. Drawn through the camera, once it has
+     * followed the player.
      * @param background Background image as a string.
      */
     protected void drawBackground(String background) {
-        Image bgImage = new Image(background);
-        bgImage.draw(Window.getWidth()/2.0, Window.getHeight()/2.0);
+        // headless sessions have no window to centre the background in
+        if (GameContext.current().isHeadless()) {
+            return;
+        }
+        Renderer.setLayer(Renderer.BACKGROUND_LAYER);
+        if (staticLayer != null) {
+            staticLayer.draw(camera);
+        } else {
+            Renderer.draw(Sprite.get(background), Window.getWidth()/2.0, Window.getHeight()/2.0);
+        }
     }
 }
@@ -1,5 +1,6 @@
 import bagel.*;
 import bagel.util.*;
+import java.io.*;
 
 /**
  * Level 0 of the game.
@@ -14,6 +15,12 @@ public class Level0 extends Level{
     private static final String LEVEL0_CSV = "res/level0.csv";
     private static final int LEVEL0_MAX_OBJECTS = 60;
 
+    // the start screen is the same every frame, so its messages are made once
+    private static final Message GAME_TITLE_MESSAGE = new Message(FONT75, ShadowDimension.GAME_TITLE,
+        new Point(GAME_TITLE_X, GAME_TITLE_Y));
+    private static final Message INSTRUCTION_MESSAGE = new Message(FONT40, LEVEL0_INSTRUCTIONS,
+        new Point(GAME_TITLE_X + 90, GAME_TITLE_Y + 190));
+
     private Timer level0EndScreenTimer;
 
     /**
@@ -24,6 +31,28 @@ public class Level0 extends Level{
         this.level0EndScreenTimer = null;
     }
 
+    /**
+     * Write the state of level 0 to a replay keyframe.
+     * @param out Stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        super.writeState(out);
+        Timer.writeState(out, level0EndScreenTimer);
+    }
+
+    /**
+     * Read the state of level 0 written by writeState.
+     * @param in Stream to read from.
+     * @throws IOException If the stream could not be read.
+     */
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        super.readState(in);
+        level0EndScreenTimer = Timer.readState(in);
+    }
+
     /**
      * Check if the player has beaten level 0. If so, move to the level 0 end screen.
      * @param input
@@ -32,16 +61,22 @@ public class Level0 extends Level{
         // if necessary, display winning message and move to next stage after 3 seconds
         if (player.isAtGate()) {
             setEndScreen(true);
-            level0EndScreenTimer = new Timer(ShadowDimension.getFrames(), LEVEL0_END_SCREEN_WAIT_SECONDS);
+            level0EndScreenTimer = new Timer(ShadowDimension.getTime(), LEVEL0_END_SCREEN_WAIT_SECONDS);
         }
     }
 
     /**
-     * Display start screen for level 0 until the player presses space.
+     * Stay on the start screen for level 0 until the player presses space. This also prepares the level.
      * @param input Input object.
      */
-    protected void displayStartScreen(Input input) {
-        startScreen();
+    protected void displayStartScreen(InputState input) {
+
+        // prepare the level if necessary
+        if (getPrepareLevel()) {
+            prepare();
+            setPrepareLevel(false);
+        }
+
         if (input.wasPressed(Keys.SPACE)) {
             setStartScreen(false);
         }
@@ -49,13 +84,11 @@ public class Level0 extends Level{
     }
 
     /**
-     * Display end screen for level 0 until time is up.
+     * Stay on the end screen for level 0 until time is up.
      */
     protected void displayEndScreen() {
-        Level.gameEndMessage(LEVEL_COMPLETION_MESSAGE);
-
         // wait
-        if (level0EndScreenTimer.isFinished(ShadowDimension.getFrames())) {
+        if (level0EndScreenTimer.isFinished(ShadowDimension.getTime())) {
             // begin next stage
             ShadowDimension.setStage(LEVEL1_STAGE);
         }
@@ -70,32 +103,22 @@ public class Level0 extends Level{
         setBoundary(ShadowDimension.readBoundary(LEVEL0_CSV));
         setObjects(ShadowDimension.readObjects(LEVEL0_CSV, LEVEL0_MAX_OBJECTS));
         setGameObjects(extractGameObjects());
+        loadAssets(LEVEL0_BACKGROUND);
     }
 
     /**
-     * Start screen for level 0. This also prepares the level.
+     * Draw the start screen for level 0.
      */
     protected void startScreen() {
-        Point gameTitlePos = new Point(GAME_TITLE_X, GAME_TITLE_Y);
-        Point gameInstructionPos = new Point(GAME_TITLE_X + 90, GAME_TITLE_Y + 190);
-        Message gameTitle = new Message(FONT75, ShadowDimension.GAME_TITLE, gameTitlePos);
-        Message gameInstruction = new Message(FONT40, LEVEL0_INSTRUCTIONS, gameInstructionPos);
-        gameTitle.draw();
-        gameInstruction.draw();
-
-        // prepare the level if necessary
-        if (getPrepareLevel()) {
-            prepare();
-            setPrepareLevel(false);
-        }
+        GAME_TITLE_MESSAGE.draw();
+        INSTRUCTION_MESSAGE.draw();
     }
 
     /**
-     * The first level of the game.
+     * Update the first level of the game by one tick.
      * @param input Input from the user which controls the player.
-     * @param player Player object that is moved.
      */
-    public void run(Input input) {
+    public void update(InputState input) {
 
         if (getStartScreen()) {
             displayStartScreen(input);
@@ -111,18 +134,40 @@ public class Level0 extends Level{
 
         // move and update the player
         player.update(input, getBoundary());
+        findContacts(player);
         playerAttack(input, player);
 
-        // draw everything
-        drawBackground(LEVEL0_BACKGROUND);
-        HealthBar.drawHealthBar(player);
-        drawObjects(getGameObjects());
-        player.draw(getBoundary());
-
         // check everything
         player.checkStates();
         checkCollisions(player);
         checkPlayerDeath(player);
         checkCompletion(player);
+        flushRemovedGameObjects();
+    }
+
+    /**
+     * Draw the first level of the game.
+     */
+    public void draw() {
+
+        if (getStartScreen()) {
+            startScreen();
+            return;
+        }
+
+        if (getEndScreen()) {
+            Level.gameEndMessage(LEVEL_COMPLETION_MESSAGE);
+            return;
+        }
+
+        // draw everything
+        Player player = GameObject.getPlayer(getObjects());
+        beginCamera(player);
+        drawBackground(LEVEL0_BACKGROUND);
+        drawObjects();
+        Renderer.setLayer(Renderer.PLAYER_LAYER);
+        player.draw(getBoundary());
+        endCamera();
+        HealthBar.drawHealthBar(player);
     }
-}
\ No newline at end of file
+}
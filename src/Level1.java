@@ -1,5 +1,6 @@
 import bagel.*;
 import bagel.util.*;
+import java.util.*;
 
 /**
  * Level 1 of the game.
@@ -10,6 +11,11 @@ public class Level1 extends Level {
     private static final String LEVEL1_BACKGROUND = "res/background1.png";
     private static final String LEVEL1_CSV = "res/level1.csv";
     private static final int LEVEL1_MAX_OBJECTS = 29;
+    private static final int WAVE_SIZE = 10;
+
+    // the start screen is the same every frame, so its message is made once
+    private static final Message INSTRUCTION_MESSAGE = new Message(FONT40, LEVEL1_INSTRUCTIONS, new Point(350, 350));
+
     private Timescale timescale;
 
     /**
@@ -21,11 +27,17 @@ public class Level1 extends Level {
     }
 
     /**
-     * Display start screen for level 1 until the player presses space.
+     * Stay on the start screen for level 1 until the player presses space. This also prepares the level.
      * @param input Input object.
      */
-    protected void displayStartScreen(Input input) {
-        startScreen();
+    protected void displayStartScreen(InputState input) {
+
+        // prepare the level if necessary
+        if (getPrepareLevel()) {
+            prepare();
+            setPrepareLevel(false);
+        }
+
         if (input.wasPressed(Keys.SPACE)) {
             setStartScreen(false);
         }
@@ -39,33 +51,52 @@ public class Level1 extends Level {
         setBoundary(ShadowDimension.readBoundary(LEVEL1_CSV));
         setObjects(ShadowDimension.readObjects(LEVEL1_CSV, LEVEL1_MAX_OBJECTS));
         setGameObjects(extractGameObjects());
+        prepareSpawner();
         if (timescale == null) {
-            timescale = new Timescale(getGameObjects());
+            timescale = new Timescale(getRegistry());
         }
         timescale.update();
+        loadAssets(LEVEL1_BACKGROUND);
     }
 
     /**
-     * Start screen for level 1. This also prepares the level.
+     * Collect the sprites of level 1, including those of the demons its spawner may spawn.
+     * @param background Background image as a string.
+     * @return Sprites of the level.
      */
-    protected void startScreen() {
-        Point gameInstructionPos = new Point(350, 350);
-        Message gameInstruction = new Message(FONT40, LEVEL1_INSTRUCTIONS, gameInstructionPos);
-        gameInstruction.draw();
+    @Override
+    protected Set<Sprite> collectAssets(String background) {
+        Set<Sprite> sprites = super.collectAssets(background);
+        getSpawner().collectSprites(sprites);
+        return sprites;
+    }
 
-        // prepare the level if necessary
-        if (getPrepareLevel()) {
-            prepare();
-            setPrepareLevel(false);
+    /**
+     * Set the spawn points of demon waves. If the level has no spawn points, waves spawn where the level's demons
+     * started.
+     */
+    private void prepareSpawner() {
+        List<Point> spawnPoints = ShadowDimension.readSpawnPoints(LEVEL1_CSV);
+        if (spawnPoints.isEmpty()) {
+            for (Demon demon : getRegistry().getDemons()) {
+                spawnPoints.add(demon.getPosition());
+            }
         }
+        getSpawner().setSpawnPoints(spawnPoints);
+    }
+
+    /**
+     * Draw the start screen for level 1.
+     */
+    protected void startScreen() {
+        INSTRUCTION_MESSAGE.draw();
     }
 
     /**
-     * The second level of the game.
+     * Update the second level of the game by one tick.
      * @param input Input from the user which controls the player.
-     * @param player Player object that is moved.
      */
-    public void run(Input input) {
+    public void update(InputState input) {
 
         if (getStartScreen()) {
             displayStartScreen(input);
@@ -75,22 +106,45 @@ public class Level1 extends Level {
         Player player = GameObject.getPlayer(getObjects());
         timescale.controls(input);
 
+        // spawn a wave of demons when S key is pressed
+        if (input.wasPressed(Keys.S)) {
+            getSpawner().spawnWave(WAVE_SIZE);
+        }
+
         // move the player and demons (including Navec)
         player.update(input, getBoundary());
+        findContacts(player);
         playerAttack(input, player);
         moveDemons();
-
-        // draw everything
-        drawBackground(LEVEL1_BACKGROUND);
-        HealthBar.drawHealthBar(player);
-        drawObjects(getGameObjects());
         demonsAttack(player);
-        player.draw(getBoundary());
 
         // check everything
         player.checkStates();
         checkCollisions(player);
         checkPlayerDeath(player);
         checkDemons();
+        flushRemovedGameObjects();
+    }
+
+    /**
+     * Draw the second level of the game.
+     */
+    public void draw() {
+
+        if (getStartScreen()) {
+            startScreen();
+            return;
+        }
+
+        // draw everything
+        Player player = GameObject.getPlayer(getObjects());
+        beginCamera(player);
+        drawBackground(LEVEL1_BACKGROUND);
+        drawObjects();
+        drawFires();
+        Renderer.setLayer(Renderer.PLAYER_LAYER);
+        player.draw(getBoundary());
+        endCamera();
+        HealthBar.drawHealthBar(player);
     }
 }
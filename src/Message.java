@@ -2,7 +2,8 @@ import bagel.*;
 import bagel.util.*;
 
 /**
- * Message class displays messages on the screen.
+ * Message class displays messages on the screen. A message draws the shared text run of its font and text, so its
+ * width is only measured once however many messages show the same text.
  */
 public class Message {
 
@@ -12,22 +13,22 @@ public class Message {
     /**
      * Font size 75.
      */
-    public static final Font FONT75 = new Font(FONT_PATH, 75);
+    public static final FontAsset FONT75 = FontAsset.get(FONT_PATH, 75);
     
     /**
      * Font size 40.
      */
-    public static final Font FONT40 = new Font(FONT_PATH, 40);
+    public static final FontAsset FONT40 = FontAsset.get(FONT_PATH, 40);
     
     /**
      * Font size 30.
      */
-    public static final Font FONT30 = new Font(FONT_PATH, 30);
+    public static final FontAsset FONT30 = FontAsset.get(FONT_PATH, 30);
     
     /**
      * Font size 15.
      */
-    public static final Font FONT15 = new Font(FONT_PATH, 15);
+    public static final FontAsset FONT15 = FontAsset.get(FONT_PATH, 15);
 
     /**
      * Colour green.
@@ -45,18 +46,16 @@ public class Message {
     public static final Colour RED = new Colour(1, 0, 0);
 
     private final Point position;
-    private final String text;
-    private final Font font;
+    private final TextRun run;
 
     /**
      * Constructor for Message class.
      * @param font Font of the message.
      * @param text The contents of the message.
      */
-    public Message(Font font, String text) {
-        this.position = new Point((Window.getWidth() - font.getWidth(text)) / 2.0, Window.getHeight() / 2.0);
-        this.text = text;
-        this.font = font;
+    public Message(FontAsset font, String text) {
+        this.run = TextRun.get(font, text, null);
+        this.position = new Point((Window.getWidth() - run.getWidth()) / 2.0, Window.getHeight() / 2.0);
     }
 
     /**
@@ -65,17 +64,16 @@ public class Message {
      * @param text The contents of the message.
      * @param position Bottom left position of the message.
      */
-    public Message(Font font, String text, Point position) {
+    public Message(FontAsset font, String text, Point position) {
         this.position = position;
-        this.text = text;
-        this.font = font;
+        this.run = TextRun.get(font, text, null);
     }
     
     /**
      * Draw the message on the screen.
      */
     public void draw() {
-        font.drawString(text, position.x, position.y);
+        run.draw(position.x, position.y);
     }
 
     /**
@@ -83,6 +81,15 @@ public class Message {
      * @param options DrawOptions to draw the message.
      */
     public void draw(DrawOptions options) {
-        font.drawString(text, position.x, position.y, options);
+        Renderer.drawString(run.getFont(), run.getText(), position.x, position.y, options);
+    }
+
+    /**
+     * Draw a moving message on the screen given DrawOptions, interpolated from where it was on the tick before.
+     * @param options DrawOptions to draw the message.
+     * @param from Bottom left position of the message on the tick before.
+     */
+    public void draw(DrawOptions options, Point from) {
+        Renderer.drawString(run.getFont(), run.getText(), from, position, options);
     }
 }
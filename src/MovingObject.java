@@ -1,16 +1,20 @@
 import bagel.*;
 import bagel.util.*;
+import java.io.*;
+import java.util.*;
 
 /**
  * All objects that move in the game are MovingObjects.
  */
 public abstract class MovingObject extends GameObject {
     
-    private final double originalSpeed;
+    private double originalSpeed;
     private double speed;
-    private Image imageLeft;
-    private Image imageRight;
+    private Sprite imageLeft;
+    private Sprite imageRight;
     private Point prevPos;
+    private Point drawnPos;
+    private long drawnFrame;
     private boolean isLeft;
 
     /**
@@ -20,16 +24,88 @@ public abstract class MovingObject extends GameObject {
      * @param position Position of the entity.
      * @param speed Speed of the entity.
      */
-    public MovingObject(Image imageLeft, Image imageRight, Point position, double speed) {
+    public MovingObject(Sprite imageLeft, Sprite imageRight, Point position, double speed) {
         super(imageRight, position);
         this.imageLeft = imageLeft;
         this.imageRight = imageRight;
         this.prevPos = position;
+        this.drawnPos = null;
         this.originalSpeed = speed;
         this.speed = speed;
         this.isLeft = false;
     }
 
+    /**
+     * Reset the object to a new position and speed, e.g. when it is reused from a pool.
+     * @param position Position of the object.
+     * @param speed Speed of the object before timescale is applied.
+     */
+    public void reset(Point position, double speed) {
+        setPosition(position);
+        setPrevPos(position);
+        this.drawnPos = null;
+        this.originalSpeed = speed;
+        setSpeed(speed);
+        this.isLeft = false;
+    }
+
+    /**
+     * Write the state of the object to a replay keyframe.
+     * @param out Stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    public void writeState(DataOutputStream out) throws IOException {
+        Point position = getPosition();
+        Point prevPos = getPrevPos();
+        out.writeUTF(imageLeft.getPath());
+        out.writeUTF(imageRight.getPath());
+        out.writeUTF(getImage().getPath());
+        out.writeDouble(position.x);
+        out.writeDouble(position.y);
+        out.writeDouble(prevPos.x);
+        out.writeDouble(prevPos.y);
+        out.writeDouble(originalSpeed);
+        out.writeDouble(getSpeed());
+        out.writeBoolean(isLeft);
+    }
+
+    /**
+     * Read the state of the object written by writeState.
+     * @param in Stream to read from.
+     * @throws IOException If the stream could not be read.
+     */
+    public void readState(DataInputStream in) throws IOException {
+        setImages(Sprite.get(in.readUTF()), Sprite.get(in.readUTF()));
+        setImage(Sprite.get(in.readUTF()));
+        setPosition(new Point(in.readDouble(), in.readDouble()));
+        setPrevPos(new Point(in.readDouble(), in.readDouble()));
+        this.originalSpeed = in.readDouble();
+        setSpeed(in.readDouble());
+        this.isLeft = in.readBoolean();
+        this.drawnPos = null;
+    }
+
+    /**
+     * Get the position the object was last drawn at, which is its position on the tick before while it is drawn every
+     * tick. An object that was not drawn on the frame before, e.g. because it was out of view, starts again from its
+     * current position rather than sliding in from wherever it was last seen.
+     * @return Position the object was last drawn at, or its current position if it was not drawn on the frame before.
+     */
+    public Point getDrawnPos() {
+        return drawnPos != null && drawnFrame >= Renderer.getFrame() - 1 ? drawnPos : getPosition();
+    }
+
+    /**
+     * Draw the object to the screen, interpolated from the position it was last drawn at.
+     */
+    @Override
+    public void draw() {
+        Point position = getPosition();
+        Renderer.drawFromTopLeft(getImage(), getDrawnPos(), position);
+        drawnPos = position;
+        drawnFrame = Renderer.getFrame();
+    }
+
     /**
      * Get the object's previous position.
      * @return Object's previous position.
@@ -38,6 +114,14 @@ public abstract class MovingObject extends GameObject {
         return prevPos;
     }
 
+    /**
+     * Set the object's previous position.
+     * @param prevPos Object's previous position.
+     */
+    protected void setPrevPos(Point prevPos) {
+        this.prevPos = prevPos;
+    }
+
     /**
      * Get the object's speed.
      * @return Object's speed as an integer.
@@ -54,16 +138,37 @@ public abstract class MovingObject extends GameObject {
         this.speed = speed;
     }
 
+    /**
+     * Scale the object's speed, both before and after timescale is applied, so the scaling is kept when the
+     * timescale changes.
+     * @param factor Factor to multiply the speed by.
+     */
+    public void scaleSpeed(double factor) {
+        originalSpeed = originalSpeed * factor;
+        setSpeed(getSpeed() * factor);
+    }
+
     /**
      * Set the left and right images of the object.
      * @param imageLeft Image of the object facing left.
      * @param imageRight Image of the object facing right.
      */
-    public void setImages(Image imageLeft, Image imageRight) {
+    public void setImages(Sprite imageLeft, Sprite imageRight) {
         this.imageLeft = imageLeft;
         this.imageRight = imageRight;
     }
 
+    /**
+     * Add the sprites of the object facing either way to a collection.
+     * @param sprites Collection to add the sprites to.
+     */
+    @Override
+    public void collectSprites(Collection<Sprite> sprites) {
+        super.collectSprites(sprites);
+        sprites.add(imageLeft);
+        sprites.add(imageRight);
+    }
+
     /**
      * Update the images of the object.
      */
@@ -80,13 +185,10 @@ public abstract class MovingObject extends GameObject {
      * @param position Position to move the player to.
      */
     public void move(Point position) {
-        prevPos = getPosition();
+        Point prevPos = getPosition();
+        setPrevPos(prevPos);
         setPosition(position);
-        if (position.x < prevPos.x) {
-            isLeft = true;
-        } else if (position.x > prevPos.x) {
-            isLeft = false;
-        }
+        updateFacing(prevPos.x, position.x);
         updateImages();
     }
 
@@ -95,7 +197,21 @@ public abstract class MovingObject extends GameObject {
      * @param direction Direction to move the player to.
      */
     public void move(Vector2 direction) {
-        move(getPosition().asVector().add(direction.mul(speed)).asPoint());
+        move(getPosition().asVector().add(direction.mul(getSpeed())).asPoint());
+    }
+
+    /**
+     * Face the object in the direction it moved horizontally. If it did not move horizontally, it keeps facing the
+     * same way.
+     * @param prevX Previous x position.
+     * @param x Current x position.
+     */
+    protected void updateFacing(double prevX, double x) {
+        if (x < prevX) {
+            isLeft = true;
+        } else if (x > prevX) {
+            isLeft = false;
+        }
     }
 
     /** 
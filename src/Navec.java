@@ -1,5 +1,6 @@
 import bagel.*;
 import bagel.util.*;
+import java.util.*;
 
 /**
  * Navec class which describes the boss of the game. Once this demon is defeated, the player wins the game.
@@ -24,18 +25,18 @@ public class Navec extends Demon {
     /**
      * Navec's fire image.
      */
-    public static final Image NAVEC_FIRE = new Image("res/navec/navecFire.png");
+    public static final Sprite NAVEC_FIRE = Sprite.get("res/navec/navecFire.png");
     
     /**
      * Navec's name.
      */
     public static final String NAVEC_NAME = "Navec";
     
-    private static final Image[] IMAGES = {
-        new Image("res/navec/navecLeft.png"),
-        new Image("res/navec/navecRight.png"),
-        new Image("res/navec/navecInvincibleLeft.png"),
-        new Image("res/navec/navecInvincibleRight.png")
+    private static final Sprite[] IMAGES = {
+        Sprite.get("res/navec/navecLeft.png"),
+        Sprite.get("res/navec/navecRight.png"),
+        Sprite.get("res/navec/navecInvincibleLeft.png"),
+        Sprite.get("res/navec/navecInvincibleRight.png")
     };
 
     /**
@@ -48,4 +49,22 @@ public class Navec extends Demon {
     public Navec(Point position, double speed, Vector2 direction) {
         super(NAVEC_FIRE, IMAGES, ATTACK_RADIUS, MAX_HEALTH, DAMAGE_POINTS, position, speed, direction, NAVEC_NAME);
     }
+
+    /**
+     * Add the sprites of Navec and its fire to a collection.
+     * @param sprites Collection to add the sprites to.
+     */
+    public static void collectNavecSprites(Collection<Sprite> sprites) {
+        Collections.addAll(sprites, IMAGES);
+        sprites.add(NAVEC_FIRE);
+    }
+
+    /**
+     * Get the collision layer of Navec.
+     * @return Collision layer bit.
+     */
+    @Override
+    public int getLayer() {
+        return Layer.NAVEC;
+    }
 }
@@ -0,0 +1,177 @@
+import bagel.util.*;
+
+/**
+ * OccupancyGrid class is a compact tile bitset marking the tiles covered by stationary objects, such as barriers and
+ * sinkholes. A tile is marked if any part of an object's rectangle touches it, so an unmarked area is guaranteed to be
+ * free while a marked area may still need an exact rectangle check.
+ */
+public class OccupancyGrid {
+
+    /**
+     * Default width and height of a tile in pixels.
+     */
+    public static final double DEFAULT_TILE_SIZE = 25;
+
+    private static final int WORD_BITS = 64;
+
+    private final double tileSize;
+    private final double originX;
+    private final double originY;
+    private final int columns;
+    private final int rows;
+    private final int wordsPerRow;
+    private final long[] bits;
+
+    /**
+     * Constructor for OccupancyGrid class.
+     * @param topLeft Top left point of the area covered by the grid.
+     * @param bottomRight Bottom right point of the area covered by the grid.
+     * @param tileSize Width and height of a tile in pixels.
+     */
+    public OccupancyGrid(Point topLeft, Point bottomRight, double tileSize) {
+        this.tileSize = tileSize;
+        this.originX = topLeft.x;
+        this.originY = topLeft.y;
+        this.columns = (int) Math.floor((bottomRight.x - topLeft.x) / tileSize) + 1;
+        this.rows = (int) Math.floor((bottomRight.y - topLeft.y) / tileSize) + 1;
+        this.wordsPerRow = (columns + WORD_BITS - 1) / WORD_BITS;
+        this.bits = new long[rows * wordsPerRow];
+    }
+
+    /**
+     * Bake an occupancy grid from the given game objects. The grid covers exactly the area spanned by those objects.
+     * @param gameObjects Game objects to mark as occupied.
+     * @return Occupancy grid of the game objects, or an empty grid if there are none.
+     */
+    public static OccupancyGrid bake(Iterable<? extends GameObject> gameObjects) {
+        double left = Double.POSITIVE_INFINITY;
+        double top = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (GameObject gameObject : gameObjects) {
+            Rectangle rectangle = gameObject.getRectangle();
+            left = Math.min(left, rectangle.left());
+            top = Math.min(top, rectangle.top());
+            right = Math.max(right, rectangle.right());
+            bottom = Math.max(bottom, rectangle.bottom());
+        }
+        if (left > right) {
+            return new OccupancyGrid(new Point(0, 0), new Point(0, 0), DEFAULT_TILE_SIZE);
+        }
+
+        OccupancyGrid grid = new OccupancyGrid(new Point(left, top), new Point(right, bottom), DEFAULT_TILE_SIZE);
+        for (GameObject gameObject : gameObjects) {
+            grid.mark(gameObject.getRectangle());
+        }
+        return grid;
+    }
+
+    /**
+     * Mark the tiles covered by a rectangle as occupied.
+     * @param rectangle Rectangle to mark.
+     */
+    public void mark(Rectangle rectangle) {
+        setTiles(rectangle, true);
+    }
+
+    /**
+     * Clear the tiles covered by a rectangle.
+     * @param rectangle Rectangle to clear.
+     */
+    public void clear(Rectangle rectangle) {
+        setTiles(rectangle, false);
+    }
+
+    /**
+     * Check if any tile covered by a rectangle is occupied.
+     * @param rectangle Rectangle to check.
+     * @return True if the rectangle may overlap an occupied tile, false if it definitely does not.
+     */
+    public boolean isOccupied(Rectangle rectangle) {
+        return isOccupied(rectangle.left(), rectangle.top(), rectangle.right(), rectangle.bottom());
+    }
+
+    /**
+     * Check if any tile covered by a rectangle given by its edges is occupied.
+     * @param left Left edge of the rectangle.
+     * @param top Top edge of the rectangle.
+     * @param right Right edge of the rectangle.
+     * @param bottom Bottom edge of the rectangle.
+     * @return True if the rectangle may overlap an occupied tile, false if it definitely does not.
+     */
+    public boolean isOccupied(double left, double top, double right, double bottom) {
+        int minColumn = Math.max(column(left), 0);
+        int maxColumn = Math.min(column(right), columns - 1);
+        int minRow = Math.max(row(top), 0);
+        int maxRow = Math.min(row(bottom), rows - 1);
+        if (minColumn > maxColumn || minRow > maxRow) {
+            return false;
+        }
+
+        for (int r = minRow; r <= maxRow; r++) {
+            int offset = r * wordsPerRow;
+            for (int w = minColumn / WORD_BITS; w <= maxColumn / WORD_BITS; w++) {
+                if ((bits[offset + w] & wordMask(w, minColumn, maxColumn)) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Set or clear the tiles covered by a rectangle.
+     * @param rectangle Rectangle of the tiles.
+     * @param occupied True to mark the tiles as occupied, false to clear them.
+     */
+    private void setTiles(Rectangle rectangle, boolean occupied) {
+        int minColumn = Math.max(column(rectangle.left()), 0);
+        int maxColumn = Math.min(column(rectangle.right()), columns - 1);
+        int minRow = Math.max(row(rectangle.top()), 0);
+        int maxRow = Math.min(row(rectangle.bottom()), rows - 1);
+
+        for (int r = minRow; r <= maxRow; r++) {
+            int offset = r * wordsPerRow;
+            for (int w = minColumn / WORD_BITS; w <= maxColumn / WORD_BITS; w++) {
+                long mask = wordMask(w, minColumn, maxColumn);
+                if (occupied) {
+                    bits[offset + w] |= mask;
+                } else {
+                    bits[offset + w] &= ~mask;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the bit mask of the columns within a word that lie in a column range.
+     * @param word Index of the word within a row.
+     * @param minColumn First column of the range.
+     * @param maxColumn Last column of the range.
+     * @return Bit mask of the columns.
+     */
+    private static long wordMask(int word, int minColumn, int maxColumn) {
+        int first = Math.max(minColumn - word * WORD_BITS, 0);
+        int last = Math.min(maxColumn - word * WORD_BITS, WORD_BITS - 1);
+        long upper = last == WORD_BITS - 1 ? -1L : (1L << (last + 1)) - 1;
+        return upper & (-1L << first);
+    }
+
+    /**
+     * Get the column of the tile containing an x coordinate.
+     * @param x X coordinate.
+     * @return Column of the tile.
+     */
+    private int column(double x) {
+        return (int) Math.floor((x - originX) / tileSize);
+    }
+
+    /**
+     * Get the row of the tile containing a y coordinate.
+     * @param y Y coordinate.
+     * @return Row of the tile.
+     */
+    private int row(double y) {
+        return (int) Math.floor((y - originY) / tileSize);
+    }
+}
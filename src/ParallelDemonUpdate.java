@@ -0,0 +1,166 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ParallelDemonUpdate class splits the per-demon work of a tick over a fork-join pool once there are enough demons to
+ * make it worthwhile. Each tick is split into two phases. In the intent phase, demons only read the state of the game
+ * and record what they want to do (whether they are blocked, which fire they shoot, whether that fire hits the
+ * player) in per-demon slots. In the commit phase, the level applies those intents one demon at a time in the same
+ * order as the single-threaded update, so the outcome of a tick does not depend on how the work was split.
+ */
+public class ParallelDemonUpdate {
+
+    /**
+     * Minimum number of demons before the intent phase is run in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 256;
+
+    // number of demons handled by one task before it stops splitting
+    private static final int LEAF_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private boolean enabled;
+    private Fire[] fires;
+    private boolean[] hitsPlayer;
+    private long runs;
+
+    /**
+     * Work done on a range of demons during the intent phase. Implementations must only read shared state and
+     * write to the slots of their own range.
+     */
+    public interface RangeAction {
+
+        /**
+         * Compute the intents of the demons in a range.
+         * @param from First index of the range, inclusive.
+         * @param to Last index of the range, exclusive.
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Task that splits a range in half until it is small enough to run directly.
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructor for RangeTask class.
+         * @param action Work to do on the range.
+         * @param from First index of the range, inclusive.
+         * @param to Last index of the range, exclusive.
+         */
+        private RangeTask(RangeAction action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Run the range directly, or split it and run both halves.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(action, from, middle), new RangeTask(action, middle, to));
+        }
+    }
+
+    /**
+     * Constructor for ParallelDemonUpdate class. Uses the common fork-join pool.
+     */
+    public ParallelDemonUpdate() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for ParallelDemonUpdate class.
+     * @param pool Pool the intent phase is run on.
+     */
+    public ParallelDemonUpdate(ForkJoinPool pool) {
+        this.pool = pool;
+        this.enabled = pool.getParallelism() > 1;
+        this.fires = new Fire[0];
+        this.hitsPlayer = new boolean[0];
+        this.runs = 0;
+    }
+
+    /**
+     * Check if parallel updates are enabled.
+     * @return True if parallel updates are enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable parallel updates. When disabled, the level always uses the single-threaded update.
+     * @param enabled True to enable parallel updates.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Check if the intent phase should run in parallel for a number of demons.
+     * @param count Number of demons.
+     * @return True if the intent phase should run in parallel, false otherwise.
+     */
+    public boolean isParallel(int count) {
+        return enabled && count >= PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * Make sure the intent slots can hold the given number of demons.
+     * @param count Number of demons.
+     */
+    public void ensureCapacity(int count) {
+        if (fires.length < count) {
+            fires = Arrays.copyOf(fires, count);
+            hitsPlayer = Arrays.copyOf(hitsPlayer, count);
+        }
+    }
+
+    /**
+     * Get the fire each demon shoots this tick, or null for demons that do not shoot. Call ensureCapacity first, as
+     * growing the slots replaces the array.
+     */
+    public Fire[] getFires() {
+        return fires;
+    }
+
+    /**
+     * Get the flags of which demons' fire hits the player this tick. Call ensureCapacity first, as growing the slots
+     * replaces the array.
+     */
+    public boolean[] getHitsPlayer() {
+        return hitsPlayer;
+    }
+
+    /**
+     * Get the number of times the intent phase has been run in parallel, to check that a run went through the
+     * parallel update at all.
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    /**
+     * Run the intent phase over a number of demons, splitting it over the pool, and wait for it to finish.
+     * @param count Number of demons.
+     * @param action Work to do on each range of demons.
+     */
+    public void forEach(int count, RangeAction action) {
+        ensureCapacity(count);
+        runs++;
+        pool.invoke(new RangeTask(action, 0, count));
+    }
+}
@@ -1,5 +1,7 @@
 import bagel.*;
 import bagel.util.*;
+import java.io.*;
+import java.util.*;
 
 /**
  * Player class that the user controls. The player can move around the map and attack enemies.
@@ -13,11 +15,11 @@ public class Player extends Entity implements Attacker {
     private static final double GATE_X = 950;
     private static final double GATE_Y = 670;
     private static final String PLAYER_NAME = "Fae";
-    private static final Image[] IMAGES = {
-        new Image("res/fae/faeLeft.png"),
-        new Image("res/fae/faeRight.png"),
-        new Image("res/fae/faeAttackLeft.png"),
-        new Image("res/fae/faeAttackRight.png")
+    private static final Sprite[] IMAGES = {
+        Sprite.get("res/fae/faeLeft.png"),
+        Sprite.get("res/fae/faeRight.png"),
+        Sprite.get("res/fae/faeAttackLeft.png"),
+        Sprite.get("res/fae/faeAttackRight.png")
     };
 
     // other constants
@@ -39,11 +41,30 @@ public class Player extends Entity implements Attacker {
         this.isTimerSet = false;
     }
 
+    /**
+     * Add the sprites of the player, including when attacking, to a collection.
+     * @param sprites Collection to add the sprites to.
+     */
+    @Override
+    public void collectSprites(Collection<Sprite> sprites) {
+        super.collectSprites(sprites);
+        Collections.addAll(sprites, IMAGES);
+    }
+
+    /**
+     * Get the collision layer of the player.
+     * @return Collision layer bit.
+     */
+    @Override
+    public int getLayer() {
+        return Layer.PLAYER;
+    }
+
     /**
      * Update the player's position given inputs.
      * @param input Input object to get inputs from.
      */
-    public void update(Input input, Boundary boundary) {
+    public void update(InputState input, Boundary boundary) {
         if (input.isDown(Keys.LEFT)) {
             this.moveLeft(boundary);
         } else if (input.isDown(Keys.RIGHT)) {
@@ -105,7 +126,7 @@ public class Player extends Entity implements Attacker {
         }
 
         if ((getState() == ATTACK) && !onCooldown) {
-            if (timer.isFinished(ShadowDimension.getFrames())) {
+            if (timer.isFinished(ShadowDimension.getTime())) {
                 isTimerSet = false;
                 setState(IDLE);
                 onCooldown = true;
@@ -116,7 +137,7 @@ public class Player extends Entity implements Attacker {
             if (getState() != IDLE) {
                 setState(IDLE);
             }
-            if (timer.isFinished(ShadowDimension.getFrames())) {
+            if (timer.isFinished(ShadowDimension.getTime())) {
                 isTimerSet = false;
                 onCooldown = false;
             }
@@ -135,10 +156,10 @@ public class Player extends Entity implements Attacker {
 
         if (!isTimerSet) {
             if (state == ATTACK) {
-                timer = new Timer(ShadowDimension.getFrames(), ABILITY_ACTIVE_MS / MS_TO_SEC);
+                timer = new Timer(ShadowDimension.getTime(), ABILITY_ACTIVE_MS / MS_TO_SEC);
                 setImages(IMAGES[IMG_ABILITY_LEFT], IMAGES[IMG_ABILITY_RIGHT]);
             } else if (state == IDLE) {
-                timer = new Timer(ShadowDimension.getFrames(), ABILITY_COOLDOWN_MS / MS_TO_SEC);
+                timer = new Timer(ShadowDimension.getTime(), ABILITY_COOLDOWN_MS / MS_TO_SEC);
                 setImages(IMAGES[IMG_LEFT], IMAGES[IMG_RIGHT]);
             } else {
                 throw new IllegalArgumentException(INVALID_STATE);
@@ -147,6 +168,32 @@ public class Player extends Entity implements Attacker {
         }
     }
 
+    /**
+     * Write the state of the player to a replay keyframe.
+     * @param out Stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(onCooldown);
+        out.writeBoolean(isTimerSet);
+        Timer.writeState(out, timer);
+    }
+
+    /**
+     * Read the state of the player written by writeState.
+     * @param in Stream to read from.
+     * @throws IOException If the stream could not be read.
+     */
+    @Override
+    public void readState(DataInputStream in) throws IOException {
+        super.readState(in);
+        this.onCooldown = in.readBoolean();
+        this.isTimerSet = in.readBoolean();
+        this.timer = Timer.readState(in);
+    }
+
     /**
      * Check if the player is attacking.
      * @return True if the player is attacking, false otherwise.
@@ -0,0 +1,14 @@
+/**
+ * PlayerPolicy interface is a scripted stand-in for the user, which decides the player's input on each tick of a
+ * headless session.
+ */
+public interface PlayerPolicy {
+
+    /**
+     * Decide the input for the next tick.
+     * @param player Player being controlled.
+     * @param registry Entity registry of the level.
+     * @return Input for the next tick.
+     */
+    InputState decide(Player player, EntityRegistry registry);
+}
@@ -0,0 +1,297 @@
+import bagel.*;
+import java.util.*;
+
+/**
+ * RenderFrame class records the draw calls made during one tick of the simulation, so they can be replayed on the
+ * render thread once the tick has finished. Commands are reused from frame to frame. Each command also records where
+ * it was drawn on the tick before, so that replaying can interpolate between the two ticks. Once a frame is recorded
+ * its commands are sorted by layer, then by texture, so draws from the same texture are issued one after another
+ * instead of switching textures back and forth. Draws in the same layer from the same texture keep the order they
+ * were recorded in.
+ */
+public class RenderFrame {
+
+    // kinds of draw command
+    private static final int IMAGE = 0;
+    private static final int IMAGE_FROM_TOP_LEFT = 1;
+    private static final int STRING = 2;
+
+    // bits of a sort key below the layer, which hold whether the command draws a string and the id of its texture
+    private static final int LAYER_SHIFT = 33;
+    private static final long TEXTURE_MASK = (1L << LAYER_SHIFT) - 1;
+    private static final long STRING_BIT = 1L << 32;
+
+    // the sort key is sorted one digit of this many bits at a time
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private final ArrayList<Command> commands;
+    private final int[] counts;
+    private Command[] buffer;
+    private int size;
+    private int recordedStateChanges;
+    private int stateChanges;
+    private Set<Sprite> levelAssets;
+
+    /**
+     * A single recorded draw call.
+     */
+    private static class Command {
+        private int kind;
+        private long key;
+        private Sprite image;
+        private FontAsset font;
+        private String text;
+        private double fromX;
+        private double fromY;
+        private double x;
+        private double y;
+        private DrawOptions options;
+    }
+
+    /**
+     * Constructor for RenderFrame class.
+     */
+    public RenderFrame() {
+        this.commands = new ArrayList<>();
+        this.counts = new int[RADIX];
+        this.buffer = new Command[0];
+        this.size = 0;
+        this.recordedStateChanges = 0;
+        this.stateChanges = 0;
+        this.levelAssets = Collections.emptySet();
+    }
+
+    /**
+     * Get the number of draw calls recorded.
+     * @return Number of draw calls.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of times replaying the frame switches texture, counting the first texture it draws from.
+     * @return Number of texture changes once the frame is sorted.
+     */
+    public int getStateChanges() {
+        return stateChanges;
+    }
+
+    /**
+     * Get the number of times replaying the frame would switch texture if its commands were not sorted.
+     * @return Number of texture changes in the order the commands were recorded.
+     */
+    public int getRecordedStateChanges() {
+        return recordedStateChanges;
+    }
+
+    /**
+     * Get the sprites of the level being played when the frame was recorded, so the render thread can check they are
+     * loaded without reading the level while the simulation thread changes it.
+     * @return Sprites of the level, empty if no level was being played.
+     */
+    public Set<Sprite> getLevelAssets() {
+        return levelAssets;
+    }
+
+    /**
+     * Set the sprites of the level being played. Called on the thread recording the frame.
+     * @param levelAssets Sprites of the level.
+     */
+    public void setLevelAssets(Set<Sprite> levelAssets) {
+        this.levelAssets = levelAssets;
+    }
+
+    /**
+     * Remove every recorded draw call.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            Command command = commands.get(i);
+            command.image = null;
+            command.font = null;
+            command.text = null;
+            command.options = null;
+        }
+        size = 0;
+        recordedStateChanges = 0;
+        stateChanges = 0;
+        levelAssets = Collections.emptySet();
+    }
+
+    /**
+     * Record drawing an image centred on a point.
+     * @param layer Layer to draw the image in. Lower layers are drawn first.
+     * @param image Image to draw.
+     * @param fromX X coordinate of the centre on the tick before.
+     * @param fromY Y coordinate of the centre on the tick before.
+     * @param x X coordinate of the centre.
+     * @param y Y coordinate of the centre.
+     * @param options Draw options, or null for none.
+     */
+    public void drawImage(int layer, Sprite image, double fromX, double fromY, double x, double y,
+                          DrawOptions options) {
+        Command command = next(IMAGE, imageKey(layer, image), fromX, fromY, x, y, options);
+        command.image = image;
+    }
+
+    /**
+     * Record drawing an image from its top left corner.
+     * @param layer Layer to draw the image in. Lower layers are drawn first.
+     * @param image Image to draw.
+     * @param fromX X coordinate of the top left corner on the tick before.
+     * @param fromY Y coordinate of the top left corner on the tick before.
+     * @param x X coordinate of the top left corner.
+     * @param y Y coordinate of the top left corner.
+     * @param options Draw options, or null for none.
+     */
+    public void drawImageFromTopLeft(int layer, Sprite image, double fromX, double fromY, double x, double y,
+                                     DrawOptions options) {
+        Command command = next(IMAGE_FROM_TOP_LEFT, imageKey(layer, image), fromX, fromY, x, y, options);
+        command.image = image;
+    }
+
+    /**
+     * Record drawing a string.
+     * @param layer Layer to draw the string in. Lower layers are drawn first.
+     * @param font Font to draw the string in.
+     * @param text String to draw.
+     * @param fromX X coordinate of the bottom left of the string on the tick before.
+     * @param fromY Y coordinate of the bottom left of the string on the tick before.
+     * @param x X coordinate of the bottom left of the string.
+     * @param y Y coordinate of the bottom left of the string.
+     * @param options Draw options, or null for none.
+     */
+    public void drawString(int layer, FontAsset font, String text, double fromX, double fromY, double x, double y,
+                           DrawOptions options) {
+        Command command = next(STRING, ((long) layer << LAYER_SHIFT) | STRING_BIT | font.getId(),
+            fromX, fromY, x, y, options);
+        command.font = font;
+        command.text = text;
+    }
+
+    /**
+     * Get the sort key of an image: its layer, then the texture it is drawn from.
+     * @param layer Layer to draw the image in.
+     * @param image Image to draw.
+     * @return Sort key of the image.
+     */
+    private static long imageKey(int layer, Sprite image) {
+        return ((long) layer << LAYER_SHIFT) | image.getTexture().getId();
+    }
+
+    /**
+     * Sort the recorded commands by layer and texture, once the frame has been recorded. The keys are sorted by a
+     * stable radix sort, one digit at a time from the lowest, so sorting takes linear time however the commands were
+     * recorded, e.g. with each demon's health text between the demon sprites. Digits every key shares are skipped,
+     * and the buffer the commands are sorted through is kept for the next frame, so sorting does not allocate once
+     * frames stop growing.
+     */
+    public void sort() {
+        long highest = 0;
+        for (int i = 0; i < size; i++) {
+            highest |= commands.get(i).key;
+        }
+        if (buffer.length < size) {
+            buffer = new Command[commands.size()];
+        }
+        for (int shift = 0; shift < Long.SIZE && (highest >>> shift) != 0; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[digit(commands.get(i).key, shift)]++;
+            }
+            if (counts[digit(commands.get(0).key, shift)] == size) {
+                continue;
+            }
+
+            // turn the counts into the position each digit's commands start at, then move the commands there in order
+            int start = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int count = counts[digit];
+                counts[digit] = start;
+                start += count;
+            }
+            for (int i = 0; i < size; i++) {
+                Command command = commands.get(i);
+                buffer[counts[digit(command.key, shift)]++] = command;
+            }
+            for (int i = 0; i < size; i++) {
+                commands.set(i, buffer[i]);
+            }
+        }
+        stateChanges = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || ((commands.get(i).key ^ commands.get(i - 1).key) & TEXTURE_MASK) != 0) {
+                stateChanges++;
+            }
+        }
+    }
+
+    /**
+     * Get one digit of a sort key.
+     * @param key Sort key.
+     * @param shift Position of the digit's lowest bit.
+     * @return Digit of the key.
+     */
+    private static int digit(long key, int shift) {
+        return (int) (key >>> shift) & (RADIX - 1);
+    }
+
+    /**
+     * Issue every recorded draw call to bagel, in the order they were sorted into. Must be called on the render
+     * thread.
+     * @param alpha How far to interpolate from the tick before to the recorded tick, from 0 to 1.
+     */
+    public void replay(double alpha) {
+        for (int i = 0; i < size; i++) {
+            Command command = commands.get(i);
+            double x = command.fromX + (command.x - command.fromX) * alpha;
+            double y = command.fromY + (command.y - command.fromY) * alpha;
+            switch (command.kind) {
+                case IMAGE:
+                    command.image.draw(x, y, command.options);
+                    break;
+                case IMAGE_FROM_TOP_LEFT:
+                    command.image.drawFromTopLeft(x, y, command.options);
+                    break;
+                case STRING:
+                    if (command.options == null) {
+                        command.font.getFont().drawString(command.text, x, y);
+                    } else {
+                        command.font.getFont().drawString(command.text, x, y, command.options);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Get the next free command, reusing one from an earlier frame if possible.
+     * @param kind Kind of draw command.
+     * @param key Sort key of the command.
+     * @param fromX X coordinate of the command on the tick before.
+     * @param fromY Y coordinate of the command on the tick before.
+     * @param x X coordinate of the command.
+     * @param y Y coordinate of the command.
+     * @param options Draw options, or null for none.
+     * @return Command to fill in.
+     */
+    private Command next(int kind, long key, double fromX, double fromY, double x, double y, DrawOptions options) {
+        if (size == commands.size()) {
+            commands.add(new Command());
+        }
+        if (size == 0 || ((commands.get(size - 1).key ^ key) & TEXTURE_MASK) != 0) {
+            recordedStateChanges++;
+        }
+        Command command = commands.get(size++);
+        command.kind = kind;
+        command.key = key;
+        command.fromX = fromX;
+        command.fromY = fromY;
+        command.x = x;
+        command.y = y;
+        command.options = options;
+        return command;
+    }
+}
@@ -0,0 +1,269 @@
+import bagel.*;
+import bagel.util.*;
+
+/**
+ * Renderer class is where the game issues its draw calls. When a frame is being recorded, draw calls are added to the
+ * frame to be replayed later on the render thread; otherwise they are passed straight to bagel. Headless sessions
+ * draw nothing. While a camera is set, coordinates are in the level and are moved into the window by the camera;
+ * otherwise they are in the window, as for the HUD.
+ */
+public class Renderer {
+
+    /**
+     * Layer of the background, drawn first.
+     */
+    public static final int BACKGROUND_LAYER = 0;
+
+    /**
+     * Layer of the barriers and sinkholes.
+     */
+    public static final int GROUND_LAYER = 1;
+
+    /**
+     * Layer of the demons and their health.
+     */
+    public static final int DEMON_LAYER = 2;
+
+    /**
+     * Layer of the demons' fire.
+     */
+    public static final int FIRE_LAYER = 3;
+
+    /**
+     * Layer of the player.
+     */
+    public static final int PLAYER_LAYER = 4;
+
+    /**
+     * Layer of text that stays still in the window, such as the player's health, drawn last.
+     */
+    public static final int HUD_LAYER = 5;
+
+    private static RenderFrame target = null;
+    private static int layer = BACKGROUND_LAYER;
+    private static Camera camera = null;
+    private static long frame = 0;
+
+    /**
+     * Get the frame draw calls are currently recorded into.
+     * @return Frame being recorded, or null if draw calls go straight to bagel.
+     */
+    public static RenderFrame getTarget() {
+        return target;
+    }
+
+    /**
+     * Set the frame draw calls are recorded into.
+     * @param target Frame to record into, or null to draw straight to bagel.
+     */
+    public static void setTarget(RenderFrame target) {
+        Renderer.target = target;
+    }
+
+    /**
+     * Get the camera coordinates are moved into the window by.
+     * @return Camera, or null if coordinates are in the window.
+     */
+    public static Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Set the camera coordinates are moved into the window by.
+     * @param camera Camera to draw the level through, or null to draw in window coordinates.
+     */
+    public static void setCamera(Camera camera) {
+        Renderer.camera = camera;
+    }
+
+    /**
+     * Get the number of the frame being drawn.
+     */
+    public static long getFrame() {
+        return frame;
+    }
+
+    /**
+     * Start drawing the next frame, from the background layer.
+     */
+    public static void nextFrame() {
+        frame++;
+        layer = BACKGROUND_LAYER;
+    }
+
+    /**
+     * Get the layer draws are recorded in.
+     */
+    public static int getLayer() {
+        return layer;
+    }
+
+    /**
+     * Set the layer draws are recorded in. Recorded frames draw lower layers first, whatever order they were drawn in,
+     * and within a layer draw images from the same texture together.
+     * @param layer Layer to draw in, such as Renderer.GROUND_LAYER.
+     */
+    public static void setLayer(int layer) {
+        Renderer.layer = layer;
+    }
+
+    /**
+     * Move an x coordinate in the level into the window, as the camera was on the tick before.
+     * @param x X coordinate in the level.
+     * @return X coordinate in the window.
+     */
+    private static double fromX(double x) {
+        return camera == null ? x : x - camera.getPrevX();
+    }
+
+    /**
+     * Move a y coordinate in the level into the window, as the camera was on the tick before.
+     * @param y Y coordinate in the level.
+     * @return Y coordinate in the window.
+     */
+    private static double fromY(double y) {
+        return camera == null ? y : y - camera.getPrevY();
+    }
+
+    /**
+     * Move an x coordinate in the level into the window, as the camera is now.
+     * @param x X coordinate in the level.
+     * @return X coordinate in the window.
+     */
+    private static double toX(double x) {
+        return camera == null ? x : x - camera.getX();
+    }
+
+    /**
+     * Move a y coordinate in the level into the window, as the camera is now.
+     * @param y Y coordinate in the level.
+     * @return Y coordinate in the window.
+     */
+    private static double toY(double y) {
+        return camera == null ? y : y - camera.getY();
+    }
+
+    /**
+     * Draw an image centred on a point.
+     * @param image Image to draw.
+     * @param x X coordinate of the centre.
+     * @param y Y coordinate of the centre.
+     */
+    public static void draw(Sprite image, double x, double y) {
+        if (GameContext.current().isHeadless()) {
+            return;
+        }
+        if (target != null) {
+            target.drawImage(layer, image, fromX(x), fromY(y), toX(x), toY(y), null);
+        } else {
+            image.draw(toX(x), toY(y), null);
+        }
+    }
+
+    /**
+     * Draw an image from its top left corner.
+     * @param image Image to draw.
+     * @param x X coordinate of the top left corner.
+     * @param y Y coordinate of the top left corner.
+     */
+    public static void drawFromTopLeft(Sprite image, double x, double y) {
+        drawFromTopLeft(image, x, y, null);
+    }
+
+    /**
+     * Draw an image from its top left corner given draw options.
+     * @param image Image to draw.
+     * @param x X coordinate of the top left corner.
+     * @param y Y coordinate of the top left corner.
+     * @param options Draw options to draw the image with, or null for none.
+     */
+    public static void drawFromTopLeft(Sprite image, double x, double y, DrawOptions options) {
+        if (GameContext.current().isHeadless()) {
+            return;
+        }
+        if (target != null) {
+            // a still image moves across the window while the camera scrolls, so it is interpolated too
+            target.drawImageFromTopLeft(layer, image, fromX(x), fromY(y), toX(x), toY(y), options);
+        } else {
+            image.drawFromTopLeft(toX(x), toY(y), options);
+        }
+    }
+
+    /**
+     * Draw a string.
+     * @param font Font to draw the string in.
+     * @param text String to draw.
+     * @param x X coordinate of the bottom left of the string.
+     * @param y Y coordinate of the bottom left of the string.
+     */
+    public static void drawString(FontAsset font, String text, double x, double y) {
+        drawString(font, text, x, y, x, y, null);
+    }
+
+    /**
+     * Draw a string given draw options.
+     * @param font Font to draw the string in.
+     * @param text String to draw.
+     * @param x X coordinate of the bottom left of the string.
+     * @param y Y coordinate of the bottom left of the string.
+     * @param options Draw options to draw the string with.
+     */
+    public static void drawString(FontAsset font, String text, double x, double y, DrawOptions options) {
+        drawString(font, text, x, y, x, y, options);
+    }
+
+    /**
+     * Draw a moving image from its top left corner, interpolated between where it was on the tick before and where
+     * it is now.
+     * @param image Image to draw.
+     * @param from Top left corner on the tick before.
+     * @param to Top left corner now.
+     */
+    public static void drawFromTopLeft(Sprite image, Point from, Point to) {
+        if (GameContext.current().isHeadless()) {
+            return;
+        }
+        if (target != null) {
+            target.drawImageFromTopLeft(layer, image, fromX(from.x), fromY(from.y), toX(to.x), toY(to.y), null);
+        } else {
+            image.drawFromTopLeft(toX(to.x), toY(to.y), null);
+        }
+    }
+
+    /**
+     * Draw a moving string given draw options, interpolated between where it was on the tick before and where it is
+     * now.
+     * @param font Font to draw the string in.
+     * @param text String to draw.
+     * @param from Bottom left of the string on the tick before.
+     * @param to Bottom left of the string now.
+     * @param options Draw options to draw the string with.
+     */
+    public static void drawString(FontAsset font, String text, Point from, Point to, DrawOptions options) {
+        drawString(font, text, from.x, from.y, to.x, to.y, options);
+    }
+
+    /**
+     * Draw a moving string, interpolated between where it was on the tick before and where it is now.
+     * @param font Font to draw the string in.
+     * @param text String to draw.
+     * @param fromX X coordinate of the bottom left of the string on the tick before.
+     * @param fromY Y coordinate of the bottom left of the string on the tick before.
+     * @param x X coordinate of the bottom left of the string now.
+     * @param y Y coordinate of the bottom left of the string now.
+     * @param options Draw options to draw the string with, or null for none.
+     */
+    public static void drawString(FontAsset font, String text, double fromX, double fromY, double x, double y,
+                                  DrawOptions options) {
+        if (GameContext.current().isHeadless()) {
+            return;
+        }
+        if (target != null) {
+            target.drawString(layer, font, text, fromX(fromX), fromY(fromY), toX(x), toY(y), options);
+        } else if (options == null) {
+            font.getFont().drawString(text, toX(x), toY(y));
+        } else {
+            font.getFont().drawString(text, toX(x), toY(y), options);
+        }
+    }
+}
@@ -10,13 +10,17 @@ import java.util.*;
 
 public class ShadowDimension extends AbstractGame {
 
-    // class specific variables
-    private static int frames = 0;
-    private static int stage = Level.LEVEL0_STAGE;
+    /**
+     * Width of the window in pixels.
+     */
+    public static final int WINDOW_WIDTH = 1024;
+
+    /**
+     * Height of the window in pixels.
+     */
+    public static final int WINDOW_HEIGHT = 768;
 
     // constants
-    private static final int WINDOW_WIDTH = 1024;
-    private static final int WINDOW_HEIGHT = 768;
     private static final String CSV_DELIMITER = ",";
     private static final Vector2[] DIRECTIONS = {
         Vector2.left,
@@ -27,6 +31,22 @@ public class ShadowDimension extends AbstractGame {
     private static final String GAME_OVER_MESSAGE = "GAME OVER!";
     private static final String GAME_WON_MESSAGE = "CONGRATULATIONS!";
 
+    // run the simulation on its own thread, one frame ahead of rendering
+    private static final boolean PIPELINED = true;
+
+    // ticks run per frame in turbo mode, where 0 runs as many ticks as fit in a frame
+    private static final int[] TURBO_FACTORS = {1, 4, 16, 64, 0};
+    private static final long UNCAPPED_TICK_BUDGET = SimClock.NANOS_PER_SECOND / SimClock.TICK_RATE;
+    private static final String TURBO_MESSAGE = "Turbo: %s";
+    private static final String TURBO_RATE_MESSAGE = "Turbo: %d ticks/s";
+    private static final String UNCAPPED = "uncapped";
+
+    // draw statistics, printed every second while they are turned on
+    private static final String DRAW_STATS_MESSAGE = "Draws: %s";
+    private static final String DRAW_STATS_ON = "on";
+    private static final String DRAW_STATS_OFF = "off";
+    private static final String DRAW_STATS_RATE_MESSAGE = "Draws: %d draw calls, %d texture changes (%d unsorted)";
+
     /**
      * Game title.
      */
@@ -41,6 +61,9 @@ public class ShadowDimension extends AbstractGame {
     private static final String NAVEC = "Navec";
     private static final String[] OBJECT_NAMES = {PLAYER, WALL, SINKHOLE, TREE, DEMON, NAVEC};
 
+    // spawn points for demon waves
+    private static final String SPAWN_POINT = "SpawnPoint";
+
     // boundary
     private static final String TOPLEFT = "TopLeft";
     private static final String BOTTOMRIGHT = "BottomRight";
@@ -49,38 +72,241 @@ public class ShadowDimension extends AbstractGame {
     private static final String WALL_IMAGE = "res/wall.png";
     private static final String TREE_IMAGE = "res/tree.png";
 
+    // recording and replaying sessions
+    private static final String SEPARATOR = "=";
+    private static final String SEED_MESSAGE = "Seed: %d";
+    private static final String REPLAY_FINISHED_MESSAGE = "Replay finished after %d ticks";
+    private static final String SEEK_MESSAGE = "Replay jumped to tick %d";
+    private static final int KEYFRAME_SECONDS = 10;
+
+    // time spent loading queued textures each frame, so a level's textures load over several frames
+    private static final long ASSET_LOAD_BUDGET = SimClock.NANOS_PER_SECOND / SimClock.TICK_RATE / 2;
+
     // error messages
+    private static final String INVALID_ARGUMENT = "Invalid argument: %s";
+    private static final String RECORD_FROM_SEEK = "A replay that starts part way through cannot be recorded.";
+    private static final String KEYFRAME_FAILED = "Keyframe could not be written or read.";
     private static final String INVALID_FACE = "Invalid face value.";
     private static final String NO_BOUNDARY_SPECIFIED = "No boundary specified.";
-    private static final String RUN_TOO_LONG = "Frames exceeded maximum value. Game has been running for too long.";
 
     // game variables
     private Level0 level0;
     private Level1 level1;
+    private FramePipeline pipeline;
+    private SimClock clock;
+    private int turbo;
+    private long rateStart;
+    private long rateTicks;
+    private boolean drawStats;
+    private long drawStatsStart;
+    private InputRecorder recorder;
+    private InputReplay replay;
+    private long seekTick;
+    private StateHashLog hashLog;
+    private StartupReport startupReport;
 
     /**
      * Constructor for ShadowDimension class.
      */
     public ShadowDimension() {
+        this(null, null);
+    }
+
+    /**
+     * Constructor for ShadowDimension class that records or replays the input of the session. The session runs in
+     * the game context of the thread that creates it.
+     * @param recorder Recorder to append the input of every tick to, or null to not record.
+     * @param replay Recording to take the input of every tick from instead of the keyboard, or null to play live.
+     */
+    public ShadowDimension(InputRecorder recorder, InputReplay replay) {
         super(WINDOW_WIDTH, WINDOW_HEIGHT, GAME_TITLE);
+        this.recorder = recorder;
+        this.replay = replay;
+        this.seekTick = -1;
+        this.hashLog = null;
+        this.startupReport = null;
         this.level0 = new Level0();
         this.level1 = new Level1();
+        this.pipeline = new FramePipeline(this::tick, this::draw, PIPELINED);
+        this.clock = new SimClock();
+        this.turbo = 0;
+        this.rateStart = 0;
+        this.rateTicks = 0;
+        this.drawStats = false;
+        this.drawStatsStart = 0;
     }
 
     /**
-     * The entry point for the program.
+     * The entry point for the program. Run with seed=N to set the random seed, record=FILE to record the session's
+     * input, or replay=FILE to replay a recorded session. Add from=SECONDS to a replay to start it part way through.
+     * Run with hashes=FILE to write the state hash after every tick, for comparing two runs with StateHashLog.
      */
     public static void main(String[] args) {
-        ShadowDimension game = new ShadowDimension();
-        game.run();
+        StartupReport startupReport = new StartupReport();
+        long seed = new Random().nextLong();
+        String recordPath = null;
+        String replayPath = null;
+        long from = -1;
+        String hashPath = null;
+        for (String arg : args) {
+            String[] pair = arg.split(SEPARATOR, 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException(String.format(INVALID_ARGUMENT, arg));
+            }
+            switch (pair[0]) {
+                case "seed":
+                    seed = Long.parseLong(pair[1]);
+                    break;
+                case "record":
+                    recordPath = pair[1];
+                    break;
+                case "replay":
+                    replayPath = pair[1];
+                    break;
+                case "hashes":
+                    hashPath = pair[1];
+                    break;
+                case "from":
+                    from = Long.parseLong(pair[1]) * SimClock.TICK_RATE;
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format(INVALID_ARGUMENT, arg));
+            }
+        }
+
+        // a replay runs with the seed of the recorded session
+        InputReplay replay = replayPath == null ? null : new InputReplay(replayPath);
+        if (replay != null) {
+            seed = replay.getSeed();
+        }
+        if (recordPath != null && replay != null && from >= 0) {
+            throw new IllegalArgumentException(RECORD_FROM_SEEK);
+        }
+        InputRecorder recorder = recordPath == null
+            ? null
+            : new InputRecorder(recordPath, seed, KEYFRAME_SECONDS * SimClock.TICK_RATE);
+
+        GameContext context = new GameContext(new Random(seed), false, true);
+        GameContext.bind(context);
+        context.log(String.format(SEED_MESSAGE, seed));
+
+        ShadowDimension game = new ShadowDimension(recorder, replay);
+        startupReport.markWindow();
+        game.setStartupReport(startupReport);
+        if (hashPath != null) {
+            game.setHashLog(new StateHashLog(hashPath));
+        }
+        if (replay != null && from >= 0) {
+            game.seek(from);
+        }
+        try {
+            game.run();
+        } finally {
+            game.close();
+        }
+    }
+
+    /**
+     * Jump a replay to a tick before the first tick runs. The game restores the keyframe at or before the tick, then
+     * replays the ticks after it without drawing them.
+     * @param tick Tick to jump to.
+     */
+    public void seek(long tick) {
+        this.seekTick = tick;
+    }
+
+    /**
+     * Set the log the state hash is written to after every tick.
+     * @param hashLog State hash log, or null to not write one.
+     */
+    public void setHashLog(StateHashLog hashLog) {
+        this.hashLog = hashLog;
     }
 
     /**
-     * Get the total number of frames rendered since the game started.
-     * @return frames.
+     * Set the report of how long the game took to start, which is printed once the first level's textures are loaded.
+     * @param startupReport Startup report, or null to not report.
      */
-    public static int getFrames() {
-        return frames;
+    public void setStartupReport(StartupReport startupReport) {
+        this.startupReport = startupReport;
+    }
+
+    /**
+     * Check if the textures of the level being played are loaded. The level is read from the completed frame, which
+     * the simulation thread published, so this does not read the stage or the levels while a tick changes them.
+     * @return True if the level's textures are loaded, false otherwise.
+     */
+    private boolean isLevelLoaded() {
+        return AssetRegistry.isLoaded(pipeline.getFrame().getLevelAssets());
+    }
+
+    /**
+     * Write the state of the game to a keyframe.
+     * @return State of the game.
+     */
+    private byte[] writeKeyframe() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            level0.writeState(out);
+            level1.writeState(out);
+            GameContext.current().writeState(out);
+        } catch (IOException e) {
+            throw new RuntimeException(KEYFRAME_FAILED, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restore the state of the game from a keyframe. The session's random numbers are restored last, since preparing
+     * the levels again uses them.
+     * @param state State of the game.
+     */
+    private void readKeyframe(byte[] state) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+            level0.readState(in);
+            level1.readState(in);
+            GameContext.current().readState(in);
+        } catch (IOException e) {
+            throw new RuntimeException(KEYFRAME_FAILED, e);
+        }
+        releaseLevelAssets();
+    }
+
+    /**
+     * Release the sprites of the levels the game is not on, so the images of a finished level are unloaded.
+     */
+    private void releaseLevelAssets() {
+        int stage = getStage();
+        if (stage != Level.LEVEL0_STAGE) {
+            level0.unloadAssets();
+        }
+        if (stage != Level.LEVEL1_STAGE) {
+            level1.unloadAssets();
+        }
+    }
+
+    /**
+     * Stop the simulation and close the recording or replay of the session.
+     */
+    public void close() {
+        pipeline.close();
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (replay != null) {
+            replay.close();
+        }
+        if (hashLog != null) {
+            hashLog.close();
+        }
+    }
+
+    /**
+     * Get the simulation time of the current tick, which advances by a fixed step each tick whatever the frame rate.
+     * @return Simulation time in nanoseconds.
+     */
+    public static long getTime() {
+        return GameContext.current().getTime();
     }
 
     /**
@@ -88,7 +314,7 @@ public class ShadowDimension extends AbstractGame {
      * @return stage of the game.
      */
     public static int getStage() {
-        return stage;
+        return GameContext.current().getStage();
     }
 
     /**
@@ -96,7 +322,23 @@ public class ShadowDimension extends AbstractGame {
      * @param stage stage of the game.
      */
     public static void setStage(int stage) {
-        ShadowDimension.stage = stage;
+        GameContext.current().setStage(stage);
+    }
+
+    /**
+     * Advance the current session by one simulation tick.
+     */
+    public static void advanceTick() {
+        GameContext context = GameContext.current();
+        context.setTicks(context.getTicks() + 1);
+    }
+
+    /**
+     * Get a random number between 0 inclusive and 1 exclusive from the current session.
+     * @return Random number.
+     */
+    private static double random() {
+        return GameContext.current().getRandom().nextDouble();
     }
 
     /**
@@ -109,8 +351,7 @@ public class ShadowDimension extends AbstractGame {
         GameObject[] objects = new GameObject[maxObjects];
         
         try {
-            File file = new File(csv);
-            FileReader fr = new FileReader(file);
+            Reader fr = AssetPack.openReader(csv);
             BufferedReader br = new BufferedReader(fr);
             String line;
             String[] values;
@@ -123,10 +364,6 @@ public class ShadowDimension extends AbstractGame {
                 double y = Double.parseDouble(values[2]);
                 Point pos = new Point(x, y);
 
-                // instantiate randoms
-                double speed;
-                int direction;
-
                 // create the object based on the type
                 if (contains(OBJECT_NAMES, values[0])) {
                     switch (values[0]) {
@@ -147,41 +384,12 @@ public class ShadowDimension extends AbstractGame {
                             objects[i] = tree;
                             break;
                         case DEMON:
-                            // determine equally randomly if the demon is passive or aggressive
-                            // where 0 is passive and 1 is aggressive
-                            int aggressive = (int) (Math.random() * 2);
-
-                            if (aggressive == 0) {
-                                speed = Demon.PASSIVE_SPEED;
-                            } else { 
-                                // determine a random speed between 0.2 and 0.7
-                                speed = 0.2 + Math.random() * 0.5;
-                            }
-
-                            // determine a random direction of left, right, up or down between 0 and 3
-                            direction = (int) (Math.random() * 4);
-
-                            Demon demon = new Demon(pos, speed, DIRECTIONS[direction]);
-
-                            // randomly choose which direction the demon faces in the beginning
-                            int face = (int) (Math.random() * 2);
-                            if (face == 0) {
-                                demon.faceLeft();
-                            } else if (face == 1) {
-                                demon.faceRight();
-                            } else {
-                                throw new RuntimeException(INVALID_FACE);
-                            }
+                            Demon demon = new Demon(pos, randomDemonSpeed(), randomDirection());
+                            randomFace(demon);
                             objects[i] = demon;
                             break;
                         case NAVEC:
-                            // determine a random speed between 0.2 and 0.7
-                            speed = 0.2 + Math.random() * 0.5;
-
-                            // determine a random direction of left, right, up or down between 0 and 3
-                            direction = (int) (Math.random() * 4);
-
-                            Navec navec = new Navec(pos, speed, DIRECTIONS[direction]);
+                            Navec navec = new Navec(pos, randomAggressiveSpeed(), randomDirection());
                             objects[i] = navec;
                             break;
                     }
@@ -200,6 +408,79 @@ public class ShadowDimension extends AbstractGame {
         return objects;
     }
 
+    /**
+     * Determine equally randomly if a demon is passive or aggressive, and if aggressive, give it a random speed.
+     * @return Speed of the demon.
+     */
+    public static double randomDemonSpeed() {
+        // 0 is passive and 1 is aggressive
+        int aggressive = (int) (random() * 2);
+        if (aggressive == 0) {
+            return Demon.PASSIVE_SPEED;
+        }
+        return randomAggressiveSpeed();
+    }
+
+    /**
+     * Determine a random speed between 0.2 and 0.7 for an aggressive demon.
+     * @return Speed of the demon.
+     */
+    public static double randomAggressiveSpeed() {
+        return 0.2 + random() * 0.5;
+    }
+
+    /**
+     * Determine a random direction of left, right, up or down.
+     * @return Direction to move in.
+     */
+    public static Vector2 randomDirection() {
+        return DIRECTIONS[(int) (random() * 4)];
+    }
+
+    /**
+     * Randomly choose which direction a demon faces in the beginning.
+     * @param demon Demon to face.
+     */
+    public static void randomFace(Demon demon) {
+        int face = (int) (random() * 2);
+        if (face == 0) {
+            demon.faceLeft();
+        } else if (face == 1) {
+            demon.faceRight();
+        } else {
+            throw new RuntimeException(INVALID_FACE);
+        }
+    }
+
+    /**
+     * Read the spawn points from the csv file.
+     * @param csv Name of the csv file.
+     * @return Positions of the spawn points, which is empty if the file has none.
+     */
+    public static ArrayList<Point> readSpawnPoints(String csv) {
+        ArrayList<Point> spawnPoints = new ArrayList<>();
+
+        try {
+            Reader fr = AssetPack.openReader(csv);
+            BufferedReader br = new BufferedReader(fr);
+            String line;
+            String[] values;
+
+            // read the csv file line by line
+            while ((line = br.readLine()) != null) {
+                values = line.split(CSV_DELIMITER);
+                if (values[0].equals(SPAWN_POINT)) {
+                    spawnPoints.add(new Point(Double.parseDouble(values[1]), Double.parseDouble(values[2])));
+                }
+            }
+            br.close();
+            fr.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return spawnPoints;
+    }
+
     /**
      * Read in the boundary from the csv file.
      * @param csv Name of the csv file.
@@ -209,8 +490,7 @@ public class ShadowDimension extends AbstractGame {
         Boundary boundary = null;
         
         try {
-            File file = new File(csv);
-            FileReader fr = new FileReader(file);
+            Reader fr = AssetPack.openReader(csv);
             BufferedReader br = new BufferedReader(fr);
             String line;
             String[] values;
@@ -264,33 +544,172 @@ public class ShadowDimension extends AbstractGame {
     /**
      * Performs a state update.
      * Allows the game to exit when the escape key is pressed.
-     * This is where the game stages are updated.
+     * The game stages are updated by the simulation tick, which runs at a fixed rate whatever the frame rate and may
+     * run on its own thread. Textures queued by the levels are loaded in the time left over after each frame.
      * @param input Input from the user.
      */
     @Override
     protected void update(Input input) {
-        
-        // increment frames
-        frames++;
-        if (frames >= Integer.MAX_VALUE) {
-            throw new RuntimeException(RUN_TOO_LONG);
+        if (startupReport != null) {
+            startupReport.markFrame(isLevelLoaded());
+        }
+        InputState state = InputState.capture(input);
+
+        // exit game when escape key is pressed
+        if (state.wasPressed(Keys.ESCAPE)) {
+            Window.close();
+        }
+
+        // cycle through the turbo modes when T key is pressed
+        long now = System.nanoTime();
+        if (state.wasPressed(Keys.T)) {
+            setTurbo((turbo + 1) % TURBO_FACTORS.length, now);
+        }
+
+        // turn the draw statistics on or off when D key is pressed
+        if (state.wasPressed(Keys.D)) {
+            drawStats = !drawStats;
+            drawStatsStart = now;
+            GameContext.current().log(String.format(DRAW_STATS_MESSAGE, drawStats ? DRAW_STATS_ON : DRAW_STATS_OFF));
+        }
+
+        int ticks = clock.advance(now);
+        if (TURBO_FACTORS[turbo] > 1) {
+            ticks *= TURBO_FACTORS[turbo];
+        }
+        pipeline.step(state, ticks, clock.getAlpha());
+        AssetRegistry.loadPending(ASSET_LOAD_BUDGET);
+        reportTickRate(now);
+        reportDrawStats(now);
+    }
+
+    /**
+     * Report the draw calls and texture changes of the frame being drawn, once a second while the draw statistics
+     * are turned on. The texture changes are reported as they are after the frame is sorted, and as they would be if
+     * it were drawn in the order it was recorded in.
+     * @param now Current time from a monotonic clock.
+     */
+    private void reportDrawStats(long now) {
+        if (!drawStats || now - drawStatsStart < SimClock.NANOS_PER_SECOND) {
+            return;
+        }
+        RenderFrame frame = pipeline.getFrame();
+        GameContext.current().log(String.format(DRAW_STATS_RATE_MESSAGE, frame.size(), frame.getStateChanges(),
+            frame.getRecordedStateChanges()));
+        drawStatsStart = now;
+    }
+
+    /**
+     * Change the turbo mode, which runs several ticks for each frame drawn to fast-forward the game.
+     * @param turbo Index of the turbo mode in TURBO_FACTORS.
+     * @param now Current time from a monotonic clock.
+     */
+    private void setTurbo(int turbo, long now) {
+        this.turbo = turbo;
+        int factor = TURBO_FACTORS[turbo];
+        pipeline.setTickBudget(factor == 0 ? UNCAPPED_TICK_BUDGET : 0);
+        GameContext.current().log(String.format(TURBO_MESSAGE, factor == 0 ? UNCAPPED : "x" + factor));
+        rateStart = now;
+        rateTicks = pipeline.getTicksRun();
+    }
+
+    /**
+     * Report how many ticks ran in the last second while in turbo mode.
+     * @param now Current time from a monotonic clock.
+     */
+    private void reportTickRate(long now) {
+        if (turbo == 0 || now - rateStart < SimClock.NANOS_PER_SECOND) {
+            return;
         }
+        long ticksRun = pipeline.getTicksRun();
+        long rate = (ticksRun - rateTicks) * SimClock.NANOS_PER_SECOND / (now - rateStart);
+        GameContext.current().log(String.format(TURBO_RATE_MESSAGE, rate));
+        rateStart = now;
+        rateTicks = ticksRun;
+    }
+
+    /**
+     * Performs one tick of the simulation.
+     * This is where the game stages are updated.
+     * @param input Snapshot of the input from the user.
+     */
+    private void tick(InputState input) {
+
+        // jump to the tick a replay starts from
+        if (replay != null && seekTick >= 0) {
+            readKeyframe(replay.seek(seekTick));
+            while (replay.getTicks() < seekTick && replay.hasNext()) {
+                simulate(replay.next());
+            }
+            GameContext.current().log(String.format(SEEK_MESSAGE, replay.getTicks()));
+            seekTick = -1;
+        }
+
+        // take the input from the replay until it runs out, or record it
+        if (replay != null) {
+            if (replay.hasNext()) {
+                input = replay.next();
+            } else {
+                GameContext.current().log(String.format(REPLAY_FINISHED_MESSAGE, replay.getTicks()));
+                replay.close();
+                replay = null;
+            }
+        }
+        if (recorder != null) {
+            if (recorder.isKeyframeDue()) {
+                recorder.writeKeyframe(writeKeyframe());
+            }
+            recorder.record(input);
+        }
+        simulate(input);
+    }
+
+    /**
+     * Advances the game stages by one tick.
+     * @param input Snapshot of the input from the user.
+     */
+    private void simulate(InputState input) {
+
+        // advance the simulation clock
+        advanceTick();
 
         // fastforward to level 1 when W key is pressed
         if (input.wasPressed(Keys.W)) {
-            stage = Level.LEVEL1_STAGE;
+            setStage(Level.LEVEL1_STAGE);
         }
 
-        // exit game when escape key is pressed
-        if (input.wasPressed(Keys.ESCAPE)) {
-            Window.close();
+        // the stages of the game
+        int stage = getStage();
+        if (stage == Level.LEVEL0_STAGE) {
+            level0.update(input);
+        } else if (stage == Level.LEVEL1_STAGE) {
+            level1.update(input);
         }
+        releaseLevelAssets();
 
-        // the stages of the game
+        // the state hash is kept up to date as the game changes, so reading it costs nothing
+        if (hashLog != null) {
+            GameContext context = GameContext.current();
+            hashLog.write(context.getTicks(), context.getStateHash().getValue());
+        }
+    }
+
+    /**
+     * Draws the stage the game is in after the last tick.
+     */
+    private void draw() {
+        Renderer.nextFrame();
+        int stage = getStage();
+
+        // publish the level being played with the frame, for the startup report on the render thread
+        RenderFrame frame = Renderer.getTarget();
+        if (frame != null) {
+            frame.setLevelAssets(stage == Level.LEVEL0_STAGE ? level0.getAssets() : level1.getAssets());
+        }
         if (stage == Level.LEVEL0_STAGE) {
-            level0.run(input);
+            level0.draw();
         } else if (stage == Level.LEVEL1_STAGE) {
-            level1.run(input);
+            level1.draw();
         } else if (stage == Level.GAME_OVER_STAGE) {
             Level.gameEndMessage(GAME_OVER_MESSAGE);
         } else if (stage == Level.GAME_WON_STAGE) {
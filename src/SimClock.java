@@ -0,0 +1,90 @@
+/**
+ * SimClock class decides how many fixed-length simulation ticks to run for each rendered frame, from a monotonic
+ * nanosecond clock. Real time is added to an accumulator and drained one tick at a time, so the simulation runs at
+ * TICK_RATE ticks per second whatever the display's refresh rate. When a frame takes too long, the simulation catches
+ * up with several ticks in one frame, up to a limit beyond which the lost time is dropped. What is left over in the
+ * accumulator gives the fraction of a tick to interpolate drawing by.
+ */
+public class SimClock {
+
+    /**
+     * Number of simulation ticks per second.
+     */
+    public static final int TICK_RATE = 60;
+
+    /**
+     * Number of nanoseconds in a second.
+     */
+    public static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // most ticks run in one frame before time is dropped, so a slow frame cannot snowball
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    // the accumulator counts nanoseconds scaled by TICK_RATE, so a tick is exactly NANOS_PER_SECOND of it
+    private static final long TICK = NANOS_PER_SECOND;
+
+    private long lastNanos;
+    private long accumulator;
+    private boolean started;
+
+    /**
+     * Constructor for SimClock class.
+     */
+    public SimClock() {
+        this.lastNanos = 0;
+        this.accumulator = 0;
+        this.started = false;
+    }
+
+    /**
+     * Get the simulation time at the start of a tick. Tick TICK_RATE is exactly one second, and the result does not
+     * overflow for hundreds of years of ticks.
+     * @param tick Number of ticks since the session started.
+     * @return Simulation time in nanoseconds.
+     */
+    public static long timeOfTick(long tick) {
+        return tick / TICK_RATE * NANOS_PER_SECOND + tick % TICK_RATE * NANOS_PER_SECOND / TICK_RATE;
+    }
+
+    /**
+     * Get the simulation time after a number of seconds.
+     * @param seconds Number of seconds.
+     * @return Duration in nanoseconds.
+     */
+    public static long seconds(int seconds) {
+        return seconds * NANOS_PER_SECOND;
+    }
+
+    /**
+     * Add the real time elapsed since the last call and work out how many ticks to run. The first call always runs
+     * one tick.
+     * @param nowNanos Current time from a monotonic clock, e.g. System.nanoTime().
+     * @return Number of ticks to run this frame.
+     */
+    public int advance(long nowNanos) {
+        if (!started) {
+            started = true;
+            lastNanos = nowNanos;
+            return 1;
+        }
+        long elapsed = Math.min(nowNanos - lastNanos, NANOS_PER_SECOND);
+        lastNanos = nowNanos;
+        accumulator += Math.max(elapsed, 0) * TICK_RATE;
+
+        int ticks = (int) Math.min(accumulator / TICK, MAX_CATCH_UP_TICKS);
+        accumulator -= ticks * TICK;
+        if (accumulator >= TICK) {
+            // drop the time that could not be caught up
+            accumulator %= TICK;
+        }
+        return ticks;
+    }
+
+    /**
+     * Get how far the clock is between the last tick and the next, for interpolating what is drawn.
+     * @return Fraction of a tick, from 0 inclusive to 1 exclusive.
+     */
+    public double getAlpha() {
+        return (double) accumulator / TICK;
+    }
+}
@@ -6,7 +6,7 @@ import bagel.util.*;
  */
 public class Sinkhole extends GameObject implements Attacker {
 
-    private static final Image IMAGE = new Image("res/sinkhole.png");
+    private static final Sprite IMAGE = Sprite.get("res/sinkhole.png");
     private static final String ATTACK_MESSAGE = "Sinkhole is dealing damage";
 
     /**
@@ -35,6 +35,15 @@ public class Sinkhole extends GameObject implements Attacker {
         this.damagePoints = damagePoints;
     }
 
+    /**
+     * Get the collision layer of the sinkhole.
+     * @return Collision layer bit.
+     */
+    @Override
+    public int getLayer() {
+        return Layer.SINKHOLE;
+    }
+
     /**
      * Get the damage points of the sinkhole.
      * @return Damage points of the sinkhole as an integer.
@@ -58,6 +67,6 @@ public class Sinkhole extends GameObject implements Attacker {
      */
     @Override
     public void attack() {
-        System.out.println(ATTACK_MESSAGE);
+        GameContext.current().log(ATTACK_MESSAGE);
     }
 }
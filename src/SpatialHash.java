@@ -0,0 +1,270 @@
+import bagel.util.*;
+import java.util.*;
+
+/**
+ * SpatialHash class buckets game objects into a uniform grid of cells, so that collision queries only look at the
+ * objects near the queried area rather than every object in the level. Each cell records the version at which it was
+ * last modified, so callers can tell whether anything near an area has changed since they last looked.
+ */
+public class SpatialHash {
+
+    /**
+     * Default width and height of a cell in pixels.
+     */
+    public static final double DEFAULT_CELL_SIZE = 100;
+
+    private final double cellSize;
+    private final HashMap<Long, Cell> cells;
+    private final IdentityHashMap<GameObject, Entry> entries;
+    private long version;
+
+    /**
+     * A cell of the grid and the version at which it was last modified.
+     */
+    private static class Cell {
+        private final ArrayList<GameObject> gameObjects = new ArrayList<>();
+        private long version;
+    }
+
+    /**
+     * The cells covered by a game object and the rectangle it was last bucketed with.
+     */
+    private static class Entry {
+        private int[] range;
+        private double left;
+        private double top;
+        private double right;
+        private double bottom;
+    }
+
+    /**
+     * Constructor for SpatialHash class using the default cell size.
+     */
+    public SpatialHash() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructor for SpatialHash class.
+     * @param cellSize Width and height of a cell in pixels.
+     */
+    public SpatialHash(double cellSize) {
+        this.cellSize = cellSize;
+        this.cells = new HashMap<>();
+        this.entries = new IdentityHashMap<>();
+        this.version = 0;
+    }
+
+    /**
+     * Get the current version of the spatial hash. The version increases whenever an object is inserted, removed
+     * or moved.
+     * @return Current version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Remove every object from the spatial hash.
+     */
+    public void clear() {
+        cells.clear();
+        entries.clear();
+        version++;
+    }
+
+    /**
+     * Insert a game object into every cell its rectangle overlaps.
+     * @param gameObject Game object to insert.
+     */
+    public void insert(GameObject gameObject) {
+        Entry entry = new Entry();
+        setRectangle(entry, gameObject.getRectangle());
+        entries.put(gameObject, entry);
+        version++;
+        addToCells(gameObject, entry.range);
+    }
+
+    /**
+     * Insert all the given game objects.
+     * @param gameObjects Game objects to insert.
+     */
+    public void insertAll(GameObject[] gameObjects) {
+        for (GameObject gameObject : gameObjects) {
+            insert(gameObject);
+        }
+    }
+
+    /**
+     * Remove a game object from the spatial hash.
+     * @param gameObject Game object to remove.
+     */
+    public void remove(GameObject gameObject) {
+        Entry entry = entries.remove(gameObject);
+        if (entry != null) {
+            version++;
+            removeFromCells(gameObject, entry.range);
+        }
+    }
+
+    /**
+     * Update the cells of a game object after it has moved. The object is only re-bucketed if the cells covered by
+     * its rectangle have changed.
+     * @param gameObject Game object that may have moved.
+     * @return True if the object was re-bucketed, false otherwise.
+     */
+    public boolean update(GameObject gameObject) {
+        Entry entry = entries.get(gameObject);
+        if (entry == null) {
+            insert(gameObject);
+            return true;
+        }
+        Rectangle rectangle = gameObject.getRectangle();
+        if (rectangle.left() == entry.left && rectangle.top() == entry.top
+            && rectangle.right() == entry.right && rectangle.bottom() == entry.bottom) {
+            return false;
+        }
+
+        version++;
+        int[] oldRange = entry.range;
+        setRectangle(entry, rectangle);
+        if (Arrays.equals(oldRange, entry.range)) {
+            // still in the same cells, but anything cached about those cells is now out of date
+            touchCells(oldRange);
+            return false;
+        }
+        removeFromCells(gameObject, oldRange);
+        addToCells(gameObject, entry.range);
+        return true;
+    }
+
+    /**
+     * Check if no cell overlapping an area has been modified since the given version.
+     * @param area Area to check.
+     * @param sinceVersion Version to compare against.
+     * @return True if the area is unchanged, false otherwise.
+     */
+    public boolean isUnchangedSince(Rectangle area, long sinceVersion) {
+        int[] range = cellRange(area);
+        for (int cx = range[0]; cx <= range[2]; cx++) {
+            for (int cy = range[1]; cy <= range[3]; cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell != null && cell.version > sinceVersion) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the game objects that may intersect the given area. Each candidate is only reported once, even if it
+     * spans several cells.
+     * @param area Area to query.
+     * @param candidates List the candidates are added to.
+     */
+    public void query(Rectangle area, ArrayList<GameObject> candidates) {
+        int[] range = cellRange(area);
+        for (int cx = range[0]; cx <= range[2]; cx++) {
+            for (int cy = range[1]; cy <= range[3]; cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (GameObject gameObject : cell.gameObjects) {
+                    // only report the object from the first cell it shares with the queried area
+                    int[] objectRange = entries.get(gameObject).range;
+                    if (cx == Math.max(range[0], objectRange[0]) && cy == Math.max(range[1], objectRange[1])) {
+                        candidates.add(gameObject);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the range of cells covered by a rectangle.
+     * @param rectangle Rectangle to get the cells of.
+     * @return Cell range as {minX, minY, maxX, maxY}.
+     */
+    private int[] cellRange(Rectangle rectangle) {
+        Point topLeft = rectangle.topLeft();
+        Point bottomRight = rectangle.bottomRight();
+        return new int[] {
+            (int) Math.floor(topLeft.x / cellSize),
+            (int) Math.floor(topLeft.y / cellSize),
+            (int) Math.floor(bottomRight.x / cellSize),
+            (int) Math.floor(bottomRight.y / cellSize)
+        };
+    }
+
+    /**
+     * Record the rectangle of a game object in its entry.
+     * @param entry Entry of the game object.
+     * @param rectangle Rectangle of the game object.
+     */
+    private void setRectangle(Entry entry, Rectangle rectangle) {
+        entry.range = cellRange(rectangle);
+        entry.left = rectangle.left();
+        entry.top = rectangle.top();
+        entry.right = rectangle.right();
+        entry.bottom = rectangle.bottom();
+    }
+
+    /**
+     * Add a game object to each cell in a range.
+     * @param gameObject Game object to add.
+     * @param range Cell range to add the object to.
+     */
+    private void addToCells(GameObject gameObject, int[] range) {
+        for (int cx = range[0]; cx <= range[2]; cx++) {
+            for (int cy = range[1]; cy <= range[3]; cy++) {
+                Cell cell = cells.computeIfAbsent(key(cx, cy), k -> new Cell());
+                cell.gameObjects.add(gameObject);
+                cell.version = version;
+            }
+        }
+    }
+
+    /**
+     * Mark each cell in a range as modified at the current version.
+     * @param range Cell range to mark.
+     */
+    private void touchCells(int[] range) {
+        for (int cx = range[0]; cx <= range[2]; cx++) {
+            for (int cy = range[1]; cy <= range[3]; cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell != null) {
+                    cell.version = version;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a game object from each cell in a range.
+     * @param gameObject Game object to remove.
+     * @param range Cell range to remove the object from.
+     */
+    private void removeFromCells(GameObject gameObject, int[] range) {
+        for (int cx = range[0]; cx <= range[2]; cx++) {
+            for (int cy = range[1]; cy <= range[3]; cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell != null) {
+                    cell.gameObjects.remove(gameObject);
+                    cell.version = version;
+                }
+            }
+        }
+    }
+
+    /**
+     * Combine cell coordinates into a single hash key.
+     * @param cx Cell x coordinate.
+     * @param cy Cell y coordinate.
+     * @return Key of the cell.
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
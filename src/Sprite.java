@@ -0,0 +1,258 @@
+import bagel.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import javax.imageio.*;
+import javax.imageio.stream.*;
+
+/**
+ * Sprite class is an image that is only loaded when it is first drawn. The size of the image is read from the file's
+ * header when the sprite is created, so game objects can be laid out and collide without a graphics context, for
+ * example in headless sessions. Sprites are created and shared through the AssetRegistry. A sprite packed into the
+ * texture atlas is drawn from its region of the atlas, so sprites drawn one after another share one texture.
+ */
+public class Sprite {
+
+    // error messages
+    private static final String MISSING_IMAGE = "Image file not found: %s";
+    private static final String UNREADABLE_IMAGE = "Image file could not be read: %s";
+    private static final String FOREIGN_OPTIONS = "Draw options of an image drawn from the atlas must come from its "
+        + "createOptions: %s";
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final int id;
+    private final String path;
+    private final double width;
+    private final double height;
+    private volatile Image image;
+    private Sprite texture;
+    private double sectionX;
+    private double sectionY;
+    private DrawOptions section;
+
+    /**
+     * Draw options made by a sprite's createOptions, which remember the sprite they select the region of.
+     */
+    private static class RegionOptions extends DrawOptions {
+
+        private final Sprite sprite;
+
+        /**
+         * Constructor for RegionOptions class.
+         * @param sprite Sprite the options are made for.
+         */
+        private RegionOptions(Sprite sprite) {
+            this.sprite = sprite;
+        }
+    }
+
+    /**
+     * Constructor for Sprite class. Reads the size of the image but does not load it. Use Sprite.get instead, so the
+     * sprite is shared.
+     * @param path Path of the image file.
+     */
+    Sprite(String path) {
+        this.id = NEXT_ID.getAndIncrement();
+        this.path = resolve(path);
+        this.image = null;
+        this.texture = this;
+        this.section = null;
+        try (InputStream in = AssetPack.open(this.path);
+             ImageInputStream stream = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new RuntimeException(String.format(UNREADABLE_IMAGE, path));
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream);
+                this.width = reader.getWidth(0);
+                this.height = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(UNREADABLE_IMAGE, path), e);
+        }
+    }
+
+    /**
+     * Get the shared sprite for an image file, creating it the first time the file is used.
+     * @param path Path of the image file.
+     * @return Sprite of the image.
+     */
+    public static Sprite get(String path) {
+        return AssetRegistry.getSprite(path);
+    }
+
+    /**
+     * Find an image file in the asset pack or on disk, ignoring the case of its name if there is no exact match,
+     * since some of the game's files have upper case extensions.
+     * @param path Path of the image file.
+     * @return Path of the image file as it is named in the pack or on disk.
+     */
+    static String resolve(String path) {
+        String packed = AssetPack.find(path);
+        if (packed != null) {
+            return packed;
+        }
+        File file = new File(path);
+        if (file.isFile()) {
+            return file.getPath();
+        }
+        File directory = file.getAbsoluteFile().getParentFile();
+        File[] siblings = directory == null ? null : directory.listFiles();
+        if (siblings != null) {
+            for (File sibling : siblings) {
+                if (sibling.isFile() && sibling.getName().equalsIgnoreCase(file.getName())) {
+                    return new File(file.getParent(), sibling.getName()).getPath();
+                }
+            }
+        }
+        throw new RuntimeException(String.format(MISSING_IMAGE, path));
+    }
+
+    /**
+     * Get the number identifying the sprite, unique among sprites. Draws are sorted by the id of their texture.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the path of the image file.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the width of the image in pixels.
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the image in pixels.
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * Draw the sprite from a region of a texture atlas rather than from its own file. Only called by the asset
+     * registry, when the sprite is created.
+     * @param atlas Sprite of the atlas image.
+     * @param x X coordinate of the region's top left corner in the atlas.
+     * @param y Y coordinate of the region's top left corner in the atlas.
+     */
+    void setRegion(Sprite atlas, double x, double y) {
+        this.texture = atlas;
+        this.sectionX = x;
+        this.sectionY = y;
+        this.section = createOptions();
+    }
+
+    /**
+     * Make new draw options for the sprite, to set a rotation or other options on. If the sprite is drawn from the
+     * atlas, the options select its region of the atlas, so a sprite drawn from the atlas must be drawn with options
+     * made here. Each call makes a separate copy, which drawing never changes.
+     * @return New draw options for the sprite.
+     */
+    public DrawOptions createOptions() {
+        DrawOptions options = new RegionOptions(this);
+        return texture == this ? options : options.setSection(sectionX, sectionY, width, height);
+    }
+
+    /**
+     * Get the sprite that owns the texture this sprite is drawn from: the atlas if the sprite is packed into it, or
+     * else the sprite itself.
+     * @return Sprite of the texture.
+     */
+    public Sprite getTexture() {
+        return texture;
+    }
+
+    /**
+     * Get the image the sprite is drawn from, loading it the first time. Must be called on the render thread.
+     * @return Loaded image, which is the whole atlas if the sprite is packed into it.
+     */
+    public Image getImage() {
+        if (texture != this) {
+            return texture.getImage();
+        }
+        Image loaded = image;
+        if (loaded == null) {
+            long start = System.nanoTime();
+            loaded = new Image(AssetPack.getFile(path));
+            image = loaded;
+            AssetRegistry.recordLoad(System.nanoTime() - start);
+        }
+        return loaded;
+    }
+
+    /**
+     * Draw the sprite centred on a point. Must be called on the render thread.
+     * @param x X coordinate of the centre.
+     * @param y Y coordinate of the centre.
+     * @param options Draw options, or null for none. A sprite drawn from the atlas must be given options made by its
+     *                createOptions.
+     */
+    public void draw(double x, double y, DrawOptions options) {
+        if (texture != this) {
+            texture.getImage().draw(x, y, options == null ? section : checkRegion(options));
+        } else if (options == null) {
+            getImage().draw(x, y);
+        } else {
+            getImage().draw(x, y, options);
+        }
+    }
+
+    /**
+     * Draw the sprite from its top left corner. Must be called on the render thread.
+     * @param x X coordinate of the top left corner.
+     * @param y Y coordinate of the top left corner.
+     * @param options Draw options, or null for none. A sprite drawn from the atlas must be given options made by its
+     *                createOptions.
+     */
+    public void drawFromTopLeft(double x, double y, DrawOptions options) {
+        if (texture != this) {
+            // the atlas image would measure the corner from its own size, so measure it from the region's
+            draw(x + width/2, y + height/2, options);
+        } else if (options == null) {
+            getImage().drawFromTopLeft(x, y);
+        } else {
+            getImage().drawFromTopLeft(x, y, options);
+        }
+    }
+
+    /**
+     * Check that draw options were made by the sprite's createOptions, so they select its region of the atlas.
+     * @param options Draw options to check.
+     * @return The draw options.
+     */
+    private DrawOptions checkRegion(DrawOptions options) {
+        if (!(options instanceof RegionOptions) || ((RegionOptions) options).sprite != this) {
+            throw new IllegalStateException(String.format(FOREIGN_OPTIONS, path));
+        }
+        return options;
+    }
+
+    /**
+     * Drop the loaded image, so its memory can be reclaimed. The image is loaded again if the sprite is drawn later.
+     * Sprites drawn from the atlas have no image of their own, so the atlas is unloaded instead.
+     */
+    public void unload() {
+        texture.image = null;
+    }
+
+    /**
+     * Check if the image the sprite is drawn from has been loaded.
+     * @return True if the image is loaded, false otherwise.
+     */
+    public boolean isLoaded() {
+        return texture.image != null;
+    }
+}
@@ -0,0 +1,73 @@
+import java.lang.management.*;
+
+/**
+ * StartupReport class measures how long the game takes to start: until the JVM runs the main method, until the
+ * window is open, until the first frame is presented, and until the textures of the first level are decoded. It is
+ * printed once, as soon as all of these have happened, along with how many images and fonts were decoded by then and
+ * how long the render thread spent decoding them.
+ */
+public class StartupReport {
+
+    private static final String REPORT = "Startup after JVM start: main %d ms, window %d ms, first frame %d ms, "
+        + "assets decoded %d ms (%d images and fonts, %d ms decoding)";
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final long jvmStart;
+    private long mainTime;
+    private long windowTime;
+    private long firstFrameTime;
+    private long assetsTime;
+    private int frames;
+    private boolean reported;
+
+    /**
+     * Constructor for StartupReport class. Create it first thing in the main method.
+     */
+    public StartupReport() {
+        this.jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        this.mainTime = sinceStart();
+        this.windowTime = -1;
+        this.firstFrameTime = -1;
+        this.assetsTime = -1;
+        this.frames = 0;
+        this.reported = false;
+    }
+
+    /**
+     * Get the time since the JVM started.
+     * @return Time in milliseconds.
+     */
+    private long sinceStart() {
+        return System.currentTimeMillis() - jvmStart;
+    }
+
+    /**
+     * Mark the window as open.
+     */
+    public void markWindow() {
+        windowTime = sinceStart();
+    }
+
+    /**
+     * Mark the start of a frame. Bagel presents a frame after the update that drew it returns, so the first frame has
+     * been presented once the second update starts.
+     * @param assetsLoaded True if the textures of the level being played are loaded, false otherwise.
+     */
+    public void markFrame(boolean assetsLoaded) {
+        if (reported) {
+            return;
+        }
+        frames++;
+        if (frames == 2) {
+            firstFrameTime = sinceStart();
+        }
+        if (assetsLoaded && assetsTime < 0) {
+            assetsTime = sinceStart();
+        }
+        if (firstFrameTime >= 0 && assetsTime >= 0) {
+            reported = true;
+            GameContext.current().log(String.format(REPORT, mainTime, windowTime, firstFrameTime, assetsTime,
+                AssetRegistry.getLoads(), AssetRegistry.getLoadNanos() / NANOS_PER_MILLI));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * StateHash class is a 64-bit hash of the state of a game session that is kept up to date as the state changes, so it
+ * can be read every tick for free. It is the sum of one term per part of the state, such as each entity's position,
+ * health, state and invincibility, and the stage. When a part changes, its old term is taken away and its new term is
+ * added. A sum does not depend on the order entities were added in, so a session restored from a replay keyframe
+ * hashes the same as the session it was recorded from.
+ */
+public class StateHash {
+
+    private long value;
+
+    /**
+     * Constructor for StateHash class. The hash starts with no terms.
+     */
+    public StateHash() {
+        this.value = 0;
+    }
+
+    /**
+     * Mix the bits of a value so that a small change to it changes about half the bits of the result.
+     * @param value Value to mix.
+     * @return Mixed value.
+     */
+    public static long mix(long value) {
+        // finaliser of the SplitMix64 generator
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Mix another value into a running term.
+     * @param term Term so far.
+     * @param value Value to mix in.
+     * @return New term.
+     */
+    public static long mix(long term, long value) {
+        return mix(term * 31 + value);
+    }
+
+    /**
+     * Get the value of the hash.
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Add a term to the hash.
+     * @param term Term to add.
+     */
+    public void add(long term) {
+        value += term;
+    }
+
+    /**
+     * Take a term away from the hash.
+     * @param term Term to take away.
+     */
+    public void remove(long term) {
+        value -= term;
+    }
+
+    /**
+     * Replace a term of the hash that has changed.
+     * @param oldTerm Term before the change.
+     * @param newTerm Term after the change.
+     */
+    public void replace(long oldTerm, long newTerm) {
+        value += newTerm - oldTerm;
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.*;
+
+/**
+ * StateHashLog class writes the state hash of a session after every tick to a text file, one tick per line, so the
+ * logs of two runs can be compared to find the first tick where they diverge. Run the main method with the paths of
+ * two logs to compare them.
+ */
+public class StateHashLog implements Closeable {
+
+    private static final String LINE_FORMAT = "%d %016x%n";
+    private static final String SEPARATOR = " ";
+
+    // comparison results
+    private static final String IDENTICAL = "Identical for %d ticks";
+    private static final String DIVERGED = "First divergence at tick %s: %s and %s";
+    private static final String ENDED = "Identical for %d ticks, then %s ended";
+
+    // error messages
+    private static final String USAGE = "Usage: StateHashLog <log> <log>";
+    private static final String WRITE_FAILED = "State hash log could not be written: %s";
+    private static final String READ_FAILED = "State hash log could not be read: %s";
+
+    private final String path;
+    private final PrintWriter out;
+
+    /**
+     * Constructor for StateHashLog class. Creates the log file.
+     * @param path Path of the log file.
+     */
+    public StateHashLog(String path) {
+        this.path = path;
+        try {
+            this.out = new PrintWriter(new BufferedWriter(new FileWriter(path)));
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, path), e);
+        }
+    }
+
+    /**
+     * Write the state hash after a tick.
+     * @param tick Number of the tick.
+     * @param hash State hash after the tick.
+     */
+    public void write(long tick, long hash) {
+        out.printf(LINE_FORMAT, tick, hash);
+    }
+
+    /**
+     * Close the log file.
+     */
+    @Override
+    public void close() {
+        out.close();
+        if (out.checkError()) {
+            throw new RuntimeException(String.format(WRITE_FAILED, path));
+        }
+    }
+
+    /**
+     * Compare two state hash logs line by line.
+     * @param first Path of the first log.
+     * @param second Path of the second log.
+     * @return Description of the first tick where the logs differ, or that they are identical.
+     */
+    public static String compare(String first, String second) {
+        try (BufferedReader a = new BufferedReader(new FileReader(first));
+             BufferedReader b = new BufferedReader(new FileReader(second))) {
+            long ticks = 0;
+            while (true) {
+                String lineA = a.readLine();
+                String lineB = b.readLine();
+                if (lineA == null && lineB == null) {
+                    return String.format(IDENTICAL, ticks);
+                } else if (lineA == null) {
+                    return String.format(ENDED, ticks, first);
+                } else if (lineB == null) {
+                    return String.format(ENDED, ticks, second);
+                } else if (!lineA.equals(lineB)) {
+                    String tick = lineA.split(SEPARATOR, 2)[0];
+                    return String.format(DIVERGED, tick, lineA, lineB);
+                }
+                ticks++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(READ_FAILED, first + ", " + second), e);
+        }
+    }
+
+    /**
+     * The entry point for comparing two state hash logs.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        System.out.println(compare(args[0], args[1]));
+    }
+}
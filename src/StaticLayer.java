@@ -0,0 +1,226 @@
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import javax.imageio.*;
+
+/**
+ * StaticLayer class is a level's background with its barriers drawn onto it, baked into images once when the level is
+ * loaded, so the walls and trees that never move are not drawn one by one every frame. The layer is cut into square
+ * chunks, so only the chunks in view of the camera are drawn on levels bigger than the window. bagel can only load
+ * images from files, so the chunks are written to temporary files named after the level and drawn as sprites. A layer
+ * records a signature of the background and barriers it was baked from, so a level prepared again with the same
+ * barriers, e.g. when a keyframe is restored, keeps its layer instead of baking it again.
+ */
+public class StaticLayer {
+
+    /**
+     * Width and height of a chunk of the layer in pixels.
+     */
+    public static final int CHUNK_SIZE = 512;
+
+    private static final String BAKED_PREFIX = "shadow-dimension-layer";
+    private static final String CHUNK_NAME = "%s-%d-%d.png";
+    private static final String FORMAT_NAME = "png";
+
+    // error messages
+    private static final String READ_FAILED = "Image could not be read: %s";
+    private static final String WRITE_FAILED = "Static layer could not be written: %s";
+
+    private static Path bakedDirectory = null;
+
+    private final long signature;
+    private final ArrayList<Sprite> chunks;
+    private final ArrayList<double[]> positions;
+
+    /**
+     * Constructor for StaticLayer class. Use StaticLayer.bake instead.
+     * @param signature Signature of the background and barriers the layer is baked from.
+     */
+    private StaticLayer(long signature) {
+        this.signature = signature;
+        this.chunks = new ArrayList<>();
+        this.positions = new ArrayList<>();
+    }
+
+    /**
+     * Get the signature of a background and barriers: a hash of the background and of each barrier's image and
+     * position, which only changes if the static layer baked from them would look different.
+     * @param background Background image as a string.
+     * @param barriers Barriers of the level.
+     * @return Signature of the static content.
+     */
+    public static long getSignature(String background, Iterable<Barrier> barriers) {
+        long signature = Sprite.get(background).getPath().hashCode();
+        for (Barrier barrier : barriers) {
+            bagel.util.Point position = barrier.getPosition();
+            signature = 31 * signature + barrier.getImage().getPath().hashCode();
+            signature = 31 * signature + Double.doubleToLongBits(position.x);
+            signature = 31 * signature + Double.doubleToLongBits(position.y);
+        }
+        return signature;
+    }
+
+    /**
+     * Bake a background and the barriers in front of it into a static layer. The background is placed where it is
+     * drawn on a level that fits in the window, centred in the window with the camera at the origin. The chunks are
+     * written over those of the level's last bake, so remove the sprites of any layer the level baked before first.
+     * @param name Name of the level, which the chunk files are named after.
+     * @param background Background image as a string.
+     * @param barriers Barriers of the level.
+     * @param signature Signature of the background and barriers, from getSignature.
+     * @return Baked layer.
+     */
+    public static synchronized StaticLayer bake(String name, String background, Iterable<Barrier> barriers,
+                                                long signature) {
+        HashMap<String, BufferedImage> images = new HashMap<>();
+        BufferedImage backgroundImage = read(Sprite.get(background).getPath(), images);
+        double backgroundX = ShadowDimension.WINDOW_WIDTH / 2.0 - backgroundImage.getWidth() / 2.0;
+        double backgroundY = ShadowDimension.WINDOW_HEIGHT / 2.0 - backgroundImage.getHeight() / 2.0;
+
+        // the layer covers the background and every barrier
+        double left = backgroundX;
+        double top = backgroundY;
+        double right = backgroundX + backgroundImage.getWidth();
+        double bottom = backgroundY + backgroundImage.getHeight();
+        for (Barrier barrier : barriers) {
+            bagel.util.Rectangle rectangle = barrier.getRectangle();
+            left = Math.min(left, rectangle.left());
+            top = Math.min(top, rectangle.top());
+            right = Math.max(right, rectangle.right());
+            bottom = Math.max(bottom, rectangle.bottom());
+        }
+        int originX = (int) Math.floor(left);
+        int originY = (int) Math.floor(top);
+        int width = (int) Math.ceil(right) - originX;
+        int height = (int) Math.ceil(bottom) - originY;
+
+        // draw the background, then the barriers in the order they are drawn in
+        BufferedImage layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = layer.createGraphics();
+        graphics.drawImage(backgroundImage, (int) Math.round(backgroundX - originX),
+            (int) Math.round(backgroundY - originY), null);
+        for (Barrier barrier : barriers) {
+            bagel.util.Point position = barrier.getPosition();
+            graphics.drawImage(read(barrier.getImage().getPath(), images), (int) Math.round(position.x - originX),
+                (int) Math.round(position.y - originY), null);
+        }
+        graphics.dispose();
+
+        // cut the layer into chunks, leaving out any that are empty
+        StaticLayer staticLayer = new StaticLayer(signature);
+        for (int y = 0; y < height; y += CHUNK_SIZE) {
+            for (int x = 0; x < width; x += CHUNK_SIZE) {
+                BufferedImage chunk = layer.getSubimage(x, y, Math.min(CHUNK_SIZE, width - x),
+                    Math.min(CHUNK_SIZE, height - y));
+                if (isEmpty(chunk)) {
+                    continue;
+                }
+                String path = write(chunk, String.format(CHUNK_NAME, name, x / CHUNK_SIZE, y / CHUNK_SIZE));
+                staticLayer.chunks.add(Sprite.get(path));
+                staticLayer.positions.add(new double[] {originX + x, originY + y});
+            }
+        }
+        return staticLayer;
+    }
+
+    /**
+     * Read an image to draw onto the layer, from the pack or its file, reading each image only once per bake.
+     * @param path Path of the image file.
+     * @param images Images read so far, by path.
+     * @return Image of the file.
+     */
+    private static BufferedImage read(String path, Map<String, BufferedImage> images) {
+        BufferedImage image = images.get(path);
+        if (image != null) {
+            return image;
+        }
+        try (InputStream in = AssetPack.open(path)) {
+            image = ImageIO.read(in);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(READ_FAILED, path), e);
+        }
+        if (image == null) {
+            throw new RuntimeException(String.format(READ_FAILED, path));
+        }
+        images.put(path, image);
+        return image;
+    }
+
+    /**
+     * Check if every pixel of a chunk is transparent, so it need not be drawn.
+     * @param chunk Chunk of the layer.
+     * @return True if the chunk is empty, false otherwise.
+     */
+    private static boolean isEmpty(BufferedImage chunk) {
+        for (int y = 0; y < chunk.getHeight(); y++) {
+            for (int x = 0; x < chunk.getWidth(); x++) {
+                if ((chunk.getRGB(x, y) >>> 24) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write a chunk to a temporary file, deleted when the game exits.
+     * @param chunk Chunk of the layer.
+     * @param name Name of the file.
+     * @return Path of the file.
+     */
+    private static String write(BufferedImage chunk, String name) {
+        try {
+            if (bakedDirectory == null) {
+                bakedDirectory = Files.createTempDirectory(BAKED_PREFIX);
+                bakedDirectory.toFile().deleteOnExit();
+            }
+            File file = bakedDirectory.resolve(name).toFile();
+            ImageIO.write(chunk, FORMAT_NAME, file);
+            file.deleteOnExit();
+            return file.getPath();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format(WRITE_FAILED, name), e);
+        }
+    }
+
+    /**
+     * Check if the layer was baked from the given background and barriers.
+     * @param signature Signature of the current background and barriers, from getSignature.
+     * @return True if the layer is up to date, false if it must be baked again.
+     */
+    public boolean isBakedFrom(long signature) {
+        return this.signature == signature;
+    }
+
+    /**
+     * Remove the sprites of the layer's chunks from the asset registry, before the level bakes a layer to replace it
+     * with chunk files of the same names.
+     */
+    public void dispose() {
+        AssetRegistry.remove(chunks);
+    }
+
+    /**
+     * Collect the sprites of the layer's chunks, so the level can load them with its other sprites.
+     * @param sprites Set to add the sprites to.
+     */
+    public void collectSprites(Set<Sprite> sprites) {
+        sprites.addAll(chunks);
+    }
+
+    /**
+     * Draw the chunks of the layer in view of the camera.
+     * @param camera Camera the level is drawn through.
+     */
+    public void draw(Camera camera) {
+        for (int i = 0; i < chunks.size(); i++) {
+            Sprite chunk = chunks.get(i);
+            double[] position = positions.get(i);
+            if (camera.isVisible(position[0], position[1], chunk.getWidth(), chunk.getHeight())) {
+                Renderer.drawFromTopLeft(chunk, position[0], position[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import bagel.*;
+import bagel.util.*;
+import java.util.*;
+
+/**
+ * TextRun class is a piece of text laid out once and kept for drawing again and again, such as a health percentage
+ * or a line of the start screen. Text runs are shared by font, text and colour, so drawing the same text every frame
+ * allocates nothing: the text, its draw options and its measured width are all made the first time the run is used.
+ */
+public class TextRun {
+
+    // runs by font, then text, then colour, where a null colour draws the text without blending
+    private static final HashMap<FontAsset, HashMap<String, IdentityHashMap<Colour, TextRun>>> RUNS = new HashMap<>();
+
+    private final FontAsset font;
+    private final String text;
+    private final DrawOptions options;
+    private volatile double width;
+
+    /**
+     * Constructor for TextRun class. Use TextRun.get instead, so the run is shared.
+     * @param font Font of the text.
+     * @param text Text of the run.
+     * @param colour Colour to blend the text with, or null for none.
+     */
+    private TextRun(FontAsset font, String text, Colour colour) {
+        this.font = font;
+        this.text = text;
+        this.options = colour == null ? null : new DrawOptions().setBlendColour(colour);
+        this.width = Double.NaN;
+    }
+
+    /**
+     * Get the shared run of a text in a font and colour, creating it the first time they are used.
+     * @param font Font of the text.
+     * @param text Text of the run.
+     * @param colour Colour to blend the text with, or null for none.
+     * @return Run of the text.
+     */
+    public static synchronized TextRun get(FontAsset font, String text, Colour colour) {
+        IdentityHashMap<Colour, TextRun> byColour = RUNS
+            .computeIfAbsent(font, key -> new HashMap<>())
+            .computeIfAbsent(text, key -> new IdentityHashMap<>());
+        TextRun run = byColour.get(colour);
+        if (run == null) {
+            run = new TextRun(font, text, colour);
+            byColour.put(colour, run);
+        }
+        return run;
+    }
+
+    /**
+     * Get the font of the run.
+     */
+    public FontAsset getFont() {
+        return font;
+    }
+
+    /**
+     * Get the text of the run.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Get the width of the text, measuring it the first time.
+     * @return Width of the text in pixels.
+     */
+    public double getWidth() {
+        double measured = width;
+        if (Double.isNaN(measured)) {
+            measured = font.getWidth(text);
+            width = measured;
+        }
+        return measured;
+    }
+
+    /**
+     * Draw the text.
+     * @param x X coordinate of the bottom left of the text.
+     * @param y Y coordinate of the bottom left of the text.
+     */
+    public void draw(double x, double y) {
+        if (options == null) {
+            Renderer.drawString(font, text, x, y);
+        } else {
+            Renderer.drawString(font, text, x, y, options);
+        }
+    }
+
+    /**
+     * Draw moving text, interpolated between where it was on the tick before and where it is now.
+     * @param fromX X coordinate of the bottom left of the text on the tick before.
+     * @param fromY Y coordinate of the bottom left of the text on the tick before.
+     * @param x X coordinate of the bottom left of the text now.
+     * @param y Y coordinate of the bottom left of the text now.
+     */
+    public void draw(double fromX, double fromY, double x, double y) {
+        Renderer.drawString(font, text, fromX, fromY, x, y, options);
+    }
+}
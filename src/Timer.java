@@ -1,35 +1,93 @@
+import java.io.*;
+
 /**
- * Timer class based on the frames passed in the game.
+ * Timer class based on the simulation time passed in the game, in nanoseconds.
  */
 public class Timer {
-    private static final int REFRESH_RATE = 60;
-    private final int beginFrame;
-    private final int endFrame;
+    private long beginTime;
+    private long endTime;
+
+    /**
+     * Constructor for Timer class.
+     * @param beginTime Simulation time to start the timer.
+     * @param seconds Number of seconds to run the timer.
+     */
+    public Timer(long beginTime, int seconds) {
+        this.beginTime = beginTime;
+        this.endTime = endTime(beginTime, seconds);
+    }
 
     /**
-     * Constructor for Frames class.
-     * @param beginFrame Frame to start the timer.
+     * Get the simulation time at which a timer started at the given time would finish.
+     * @param beginTime Simulation time to start the timer.
      * @param seconds Number of seconds to run the timer.
+     * @return Simulation time at which the timer finishes.
      */
-    public Timer(int beginFrame, int seconds) {
-        this.beginFrame = beginFrame;
-        this.endFrame = beginFrame + seconds * REFRESH_RATE;
+    public static long endTime(long beginTime, int seconds) {
+        return beginTime + SimClock.seconds(seconds);
+    }
+
+    /**
+     * Restart the timer, so that the same timer can be reused instead of creating a new one.
+     * @param beginTime Simulation time to start the timer.
+     * @param seconds Number of seconds to run the timer.
+     */
+    public void restart(long beginTime, int seconds) {
+        this.beginTime = beginTime;
+        this.endTime = endTime(beginTime, seconds);
     }
 
     /**
      * Check if the timer has finished.
-     * @param currentFrame Current frame of the game.
+     * @param currentTime Current simulation time of the game.
      * @return True if the timer has finished, false otherwise.
      */
-    public boolean isFinished(int currentFrame) {
-        return currentFrame >= endFrame;
+    public boolean isFinished(long currentTime) {
+        return currentTime >= endTime;
+    }
+
+    /**
+     * Write a timer to a replay keyframe.
+     * @param out Stream to write to.
+     * @param timer Timer to write, or null.
+     * @throws IOException If the stream could not be written.
+     */
+    public static void writeState(DataOutputStream out, Timer timer) throws IOException {
+        out.writeBoolean(timer != null);
+        if (timer != null) {
+            out.writeLong(timer.beginTime);
+            out.writeLong(timer.endTime);
+        }
+    }
+
+    /**
+     * Read a timer written by writeState.
+     * @param in Stream to read from.
+     * @return Timer read, or null if no timer was written.
+     * @throws IOException If the stream could not be read.
+     */
+    public static Timer readState(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Timer timer = new Timer(in.readLong(), 0);
+        timer.endTime = in.readLong();
+        return timer;
+    }
+
+    /**
+     * Get the simulation time the timer finishes at.
+     * @return End time of the timer.
+     */
+    public long getEndTime() {
+        return endTime;
     }
 
     /**
-     * Get beginning frame of the timer.
-     * @return Beginning frame of the timer.
+     * Get the simulation time the timer began at.
+     * @return Beginning time of the timer.
      */
-    public int getBeginFrame() {
-        return beginFrame;
+    public long getBeginTime() {
+        return beginTime;
     }
 }
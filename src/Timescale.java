@@ -5,33 +5,41 @@ import bagel.*;
  */
 public class Timescale {
 
-    private static final int DEFAULT_TIMESCALE = 0;
+    /**
+     * Timescale at the start of a game.
+     */
+    public static final int DEFAULT_TIMESCALE = 0;
+
     private static final int MAX_TIMESCALE = 3;
     private static final int MIN_TIMESCALE = -3;
-    private static int timescale = DEFAULT_TIMESCALE;
     private static final String SPED_UP = "Sped up, Speed: %d";
     private static final String SLOWED_DOWN = "Slowed down, Speed: %d";
 
-    private GameObject[] gameObjects;
+    private EntityRegistry registry;
 
     /**
      * Constructor for Timescale class.
-     * @param gameObjects List of game objects.
+     * @param registry Entity registry of the level.
+     */
+    Timescale(EntityRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Get the current timescale.
+     * @return Current timescale.
      */
-    Timescale(GameObject[] gameObjects) {
-        this.gameObjects = gameObjects;
+    public static int getTimescale() {
+        return GameContext.current().getTimescale();
     }
 
     /**
-     * Update timescale speeds for all the moving game objects.
+     * Update timescale speeds for all the demons, which are the only moving objects affected by timescale.
      */
     public void update() {
-        for (GameObject gameObject : gameObjects) {
-            if (!(gameObject instanceof MovingObject)) {
-                continue;
-            }
-            MovingObject movingObject = (MovingObject) gameObject;
-            movingObject.timescaleSpeed(timescale);
+        int timescale = getTimescale();
+        for (Demon demon : registry.getDemons()) {
+            demon.timescaleSpeed(timescale);
         }
     }
 
@@ -39,9 +47,11 @@ public class Timescale {
      * Increase timescale for the game.
      */
     public void increase() {
+        GameContext context = GameContext.current();
+        int timescale = context.getTimescale();
         if (timescale < MAX_TIMESCALE) {
-            timescale++;
-            System.out.println(String.format(SPED_UP, timescale));
+            context.setTimescale(++timescale);
+            context.log(String.format(SPED_UP, timescale));
             update();
         }
     }
@@ -50,9 +60,11 @@ public class Timescale {
      * Decrease timescale for the game.
      */
     public void decrease() {
+        GameContext context = GameContext.current();
+        int timescale = context.getTimescale();
         if (timescale > MIN_TIMESCALE) {
-            timescale--;
-            System.out.println(String.format(SLOWED_DOWN, timescale));
+            context.setTimescale(--timescale);
+            context.log(String.format(SLOWED_DOWN, timescale));
             update();
         }
     }
@@ -61,7 +73,7 @@ public class Timescale {
      * Given the input, if the `L` key is pressed, increase timescale. If the `K` key is pressed, decrease timescale.
      * @param input Input from the user.
      */
-    public void controls(Input input) {
+    public void controls(InputState input) {
         if (input.wasPressed(Keys.L)) {
             increase();
         } else if (input.wasPressed(Keys.K)) {